@@ -0,0 +1,47 @@
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import interpreter.Interpreter;
+import interpreter.command.Command;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Mede quantos bytes o interpretador de árvore aloca por execução de cada
+// script. Para comparar com o cache de números desligado, rode de novo com
+// -Dmjs.numberCache.high=-1.
+//
+// Uso: java -cp <classes> bench.AllocationBenchmark [script.mjs ...]
+public class AllocationBenchmark {
+
+    private static final String[] SCRIPTS = {
+        "bench/scripts/loop.mjs",
+        "bench/scripts/calls.mjs",
+        "bench/scripts/forin.mjs",
+        "bench/scripts/counters.mjs"
+    };
+
+    public static void main(String[] args) throws Exception {
+        String[] scripts = args.length > 0 ? args : SCRIPTS;
+
+        PrintStream out = System.out;
+        System.out.printf("%-28s %12s %10s %10s%n", "script", "MB/run", "MB/s", "ms");
+        for (String script : scripts) {
+            Command cmd;
+            try (LexicalAnalysis l = LexicalAnalysis.fromFile(script)) {
+                cmd = new SyntaticAnalysis(l).process();
+            }
+
+            // A saída dos scripts não faz parte da medição.
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            BenchmarkSuite.Result r = BenchmarkSuite.measure(() -> Interpreter.interpret(cmd));
+            System.setOut(out);
+
+            double mb = r.bytes / (1024 * 1024);
+            System.out.printf("%-28s %12.1f %10.1f %10.1f%n", script,
+                mb, mb / r.seconds(), r.millis());
+        }
+    }
+
+}
@@ -0,0 +1,256 @@
+package bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import interpreter.Interpreter;
+import interpreter.InterpreterContext;
+import interpreter.command.Command;
+import interpreter.vm.RegisterMachine;
+import interpreter.vm.VirtualMachine;
+import lexical.LexicalAnalysis;
+import lexical.TableLexicalAnalysis;
+import lexical.Token;
+import syntatic.SyntaticAnalysis;
+
+// Conjunto de medições do analisador léxico, do sintático e da execução,
+// para acompanhar regressões de desempenho. Cada medição roda por um tempo
+// fixo (aquecimento e medição) e informa, além do tempo, quantos bytes a
+// thread alocou por operação.
+//
+// measure() é o laço de medição de todos os benchmarks deste pacote; os
+// demais só preparam as operações e formatam os resultados.
+//
+// Uso: java -cp <classes> bench.BenchmarkSuite [opções]
+//   --vm=stack|register  executa os scripts na máquina virtual indicada
+//   --save=<arquivo>     grava os resultados para comparações futuras
+//   --baseline=<arquivo> compara com resultados gravados e termina com
+//                        código 1 se alguma medição piorar além da tolerância
+//   --tolerance=<pct>    tolerância da comparação (padrão: 10)
+public class BenchmarkSuite {
+
+    private static final long WARMUP_NANOS = 500_000_000L;
+    private static final long MEASURE_NANOS = 1_000_000_000L;
+
+    private static final String[] SCRIPTS = {
+        "bench/scripts/loop.mjs",
+        "bench/scripts/strings.mjs",
+        "bench/scripts/objects.mjs",
+        "bench/scripts/calls.mjs",
+        "bench/scripts/forin.mjs",
+        "examples/array.mjs"
+    };
+
+    private static final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Operação medida; pode lançar as exceções da preparação (E/S, por
+    // exemplo).
+    interface Op {
+        void run() throws Exception;
+    }
+
+    // Resultado de uma medição: tempo e bytes alocados por operação.
+    static class Result {
+        double nanos;
+        double bytes;
+
+        double millis() {
+            return nanos / 1e6;
+        }
+
+        double seconds() {
+            return nanos / 1e9;
+        }
+    }
+
+    private static String vm = null;
+    private static String save = null;
+    private static String baseline = null;
+    private static double tolerance = 10.0;
+
+    public static void main(String[] args) throws Exception {
+        for (String arg : args) {
+            if (arg.startsWith("--vm="))
+                vm = arg.substring(5);
+            else if (arg.startsWith("--save="))
+                save = arg.substring(7);
+            else if (arg.startsWith("--baseline="))
+                baseline = arg.substring(11);
+            else if (arg.startsWith("--tolerance="))
+                tolerance = Double.parseDouble(arg.substring(12));
+            else
+                throw new IllegalArgumentException("Unknown option: " + arg);
+        }
+
+        // Métricas em que um valor maior é melhor terminam em "MB/s".
+        Map<String, Double> metrics = new LinkedHashMap<String, Double>();
+
+        System.out.printf("%-36s %12s %12s%n", "benchmark", "score", "KB/op");
+
+        char[] source = sample(1024 * 1024);
+        double mb = source.length / (1024.0 * 1024.0);
+        for (boolean table : new boolean[] { false, true }) {
+            Result r = measure(() -> lex(source, table));
+            String name = "lex." + (table ? "table" : "state") + " MB/s";
+            report(metrics, name, mb / (r.nanos / 1e9), r);
+        }
+
+        PrintStream out = System.out;
+        for (String script : SCRIPTS) {
+            InterpreterContext context = new InterpreterContext();
+            Command cmd;
+            try (LexicalAnalysis l = LexicalAnalysis.fromFile(script)) {
+                cmd = new SyntaticAnalysis(l, context).process();
+            }
+
+            // A saída dos scripts não faz parte da medição.
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            Result r = measure(engine(context, cmd));
+            System.setOut(out);
+
+            String name = "eval." + Paths.get(script).getFileName() + " ms/op";
+            report(metrics, name, r.nanos / 1e6, r);
+        }
+
+        char[] program = program(64 * 1024);
+        Result parse = measure(() -> parse(program));
+        report(metrics, "parse.64KB ms/op", parse.nanos / 1e6, parse);
+
+        if (save != null)
+            save(metrics, save);
+
+        if (baseline != null && !compare(metrics, load(baseline)))
+            System.exit(1);
+    }
+
+    private static Op engine(InterpreterContext context, Command cmd) {
+        if ("stack".equals(vm)) {
+            VirtualMachine machine = new VirtualMachine();
+            return () -> machine.run(cmd);
+        } else if ("register".equals(vm)) {
+            RegisterMachine machine = new RegisterMachine(context);
+            return () -> machine.run(cmd);
+        } else {
+            return () -> Interpreter.interpret(cmd);
+        }
+    }
+
+    // Aquece op por WARMUP_NANOS e a repete até completar MEASURE_NANOS
+    // (ao menos uma vez).
+    static Result measure(Op op) throws Exception {
+        long end = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < end)
+            op.run();
+
+        long thread = Thread.currentThread().getId();
+        long bytes = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long count = 0;
+        long now;
+        do {
+            op.run();
+            count++;
+            now = System.nanoTime();
+        } while (now - start < MEASURE_NANOS);
+
+        Result r = new Result();
+        r.nanos = (double) (now - start) / count;
+        r.bytes = (double) (threads.getThreadAllocatedBytes(thread) - bytes) / count;
+        return r;
+    }
+
+    private static void report(Map<String, Double> metrics, String name, double score, Result r) {
+        metrics.put(name, score);
+        System.out.printf("%-36s %12.3f %12.1f%n", name, score, r.bytes / 1024);
+    }
+
+    private static char[] sample(int size) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < size)
+            sb.append(LexerBenchmark.SAMPLE);
+        return sb.toString().toCharArray();
+    }
+
+    // Repete examples/array.mjs, cada cópia em um bloco próprio para que as
+    // declarações não se repitam no mesmo escopo.
+    private static char[] program(int size) throws IOException {
+        String example = new String(Files.readAllBytes(Path.of(SCRIPTS[SCRIPTS.length - 1])),
+            StandardCharsets.UTF_8);
+
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < size)
+            sb.append("{\n").append(example).append("}\n");
+        return sb.toString().toCharArray();
+    }
+
+    private static void lex(char[] source, boolean table) {
+        CharBuffer chars = CharBuffer.wrap(source);
+        LexicalAnalysis l = table ?
+            new TableLexicalAnalysis(chars) : new LexicalAnalysis(chars);
+
+        Token t;
+        do {
+            t = l.nextToken();
+        } while (t.type != Token.Type.END_OF_FILE);
+    }
+
+    private static void parse(char[] program) {
+        LexicalAnalysis l = new LexicalAnalysis(CharBuffer.wrap(program));
+        new SyntaticAnalysis(l).process();
+    }
+
+    private static void save(Map<String, Double> metrics, String file) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        for (Map.Entry<String, Double> e : metrics.entrySet())
+            lines.add(e.getKey() + "\t" + e.getValue());
+
+        Files.write(Path.of(file), lines, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Double> load(String file) throws IOException {
+        Map<String, Double> metrics = new LinkedHashMap<String, Double>();
+        for (String line : Files.readAllLines(Path.of(file), StandardCharsets.UTF_8)) {
+            int tab = line.lastIndexOf('\t');
+            if (tab > 0)
+                metrics.put(line.substring(0, tab), Double.parseDouble(line.substring(tab + 1)));
+        }
+
+        return metrics;
+    }
+
+    private static boolean compare(Map<String, Double> metrics, Map<String, Double> base) {
+        boolean ok = true;
+
+        System.out.println();
+        System.out.printf("%-36s %12s %12s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, Double> e : metrics.entrySet()) {
+            Double before = base.get(e.getKey());
+            if (before == null)
+                continue;
+
+            double after = e.getValue();
+            double change = (after - before) / before * 100;
+            boolean higherIsBetter = e.getKey().endsWith("MB/s");
+            boolean regressed = higherIsBetter ? change < -tolerance : change > tolerance;
+
+            System.out.printf("%-36s %12.3f %12.3f %8.1f%%%s%n", e.getKey(), before, after,
+                change, regressed ? "  REGRESSION" : "");
+            ok &= !regressed;
+        }
+
+        return ok;
+    }
+
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import java.nio.CharBuffer;
+import java.util.concurrent.TimeUnit;
+
+import interpreter.Interpreter;
+import interpreter.InterpreterContext;
+import interpreter.command.Command;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Custo das verificações do Budget em um script só de laços e chamadas:
+// fora de um contexto (nada a verificar), em um contexto sem limites e com
+// limites de passos e de tempo que nunca são atingidos.
+//
+// Uso: java -cp <classes> bench.BudgetBenchmark
+public class BudgetBenchmark {
+
+    private static final String SCRIPT =
+        "{\n" +
+        "    const fib = function() {\n" +
+        "        const n = params[0];\n" +
+        "        let r = n;\n" +
+        "        if (n >= 2) r = fib(n - 1) + fib(n - 2);\n" +
+        "        return r;\n" +
+        "    };\n" +
+        "    let s = 0;\n" +
+        "    let i = 0;\n" +
+        "    { while (i < 300000) { s = s + i; i++; } }\n" +
+        "    s = s + fib(22);\n" +
+        "}\n";
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-24s %10s%n", "budget", "ms");
+        System.out.printf("%-24s %10.1f%n", "no context", measure(null));
+
+        System.out.printf("%-24s %10.1f%n", "unlimited", measure(new InterpreterContext()));
+
+        InterpreterContext limited = new InterpreterContext();
+        limited.getBudget().setMaxSteps(Long.MAX_VALUE - 1);
+        limited.getBudget().setMaxTime(1, TimeUnit.HOURS);
+        System.out.printf("%-24s %10.1f%n", "steps and time", measure(limited));
+    }
+
+    // O Budget é zerado a cada execução, como em uma nova execução no mesmo
+    // contexto, para que passos e tempo não se acumulem entre elas.
+    private static double measure(InterpreterContext context) throws Exception {
+        Command cmd;
+        try (LexicalAnalysis l = new LexicalAnalysis(CharBuffer.wrap(SCRIPT))) {
+            cmd = new SyntaticAnalysis(l, new InterpreterContext()).process();
+        }
+
+        InterpreterContext saved = context != null ? context.enter() : null;
+        try {
+            return BenchmarkSuite.measure(() -> {
+                if (context != null)
+                    context.getBudget().reset();
+                Interpreter.interpret(cmd);
+            }).millis();
+        } finally {
+            if (context != null)
+                InterpreterContext.exit(saved);
+        }
+    }
+
+}
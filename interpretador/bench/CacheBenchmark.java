@@ -0,0 +1,114 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import interpreter.InterpreterContext;
+import interpreter.cache.ScriptCache;
+import interpreter.command.Command;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Compara a partida de um script analisado do zero com a do mesmo script
+// lido do cache (.mjsc): dentro do processo (fonte -> árvore) e em um
+// processo novo (java mjsi vs. java mjsi --cache=<dir>).
+//
+// O programa gerado repete examples/closures.mjs dentro de "if (0) { ... }",
+// de modo que quase todo o tempo é gasto na análise, não na execução.
+// (examples/array.mjs não serve: um objeto literal com funções não vai
+// para o cache.)
+//
+// Uso: java -cp <classes> bench.CacheBenchmark [KB ...]
+public class CacheBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length == 0 ? new int[] { 16, 64, 256 } : new int[args.length];
+        for (int i = 0; i < args.length; i++)
+            sizes[i] = Integer.parseInt(args[i]);
+
+        Path dir = Files.createTempDirectory("mjsi-cache-");
+        ScriptCache cache = new ScriptCache(dir);
+
+        System.out.printf("%6s %10s %12s %12s %12s %12s%n", "KB", ".mjsc KB",
+            "parse (ms)", "load (ms)", "java (ms)", "java -c (ms)");
+        for (int kb : sizes) {
+            Path file = generate(kb);
+            try {
+                ByteBuffer bytes = LexicalAnalysis.mapBytes(file.toString());
+                byte[] digest = ScriptCache.digest(bytes);
+                InterpreterContext context = new InterpreterContext();
+                try (LexicalAnalysis l = LexicalAnalysis.fromFile(file.toString())) {
+                    cache.store(context, file, digest, new SyntaticAnalysis(l, context).process());
+                }
+                long stored = Files.size(cache.pathFor(file, digest));
+
+                double parse = BenchmarkSuite.measure(() -> parse(file)).millis();
+                double load = BenchmarkSuite.measure(() -> load(cache, file)).millis();
+                double cold = startup(file, null);
+                double hit = startup(file, dir);
+
+                System.out.printf("%6d %10.1f %12.2f %12.2f %12.1f %12.1f%n",
+                    kb, stored / 1024.0, parse, load, cold, hit);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator)
+                Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+
+    private static Command parse(Path file) {
+        try (LexicalAnalysis l = LexicalAnalysis.fromFile(file.toString())) {
+            return new SyntaticAnalysis(l).process();
+        }
+    }
+
+    private static Command load(ScriptCache cache, Path file) {
+        ByteBuffer bytes = LexicalAnalysis.mapBytes(file.toString());
+        Command cmd = cache.load(new InterpreterContext(), file, ScriptCache.digest(bytes));
+        if (cmd == null)
+            throw new IllegalStateException("cache miss");
+        return cmd;
+    }
+
+    // Tempo de parede de uma execução de "java mjsi".
+    private static double startup(Path file, Path dir) throws Exception {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String cp = System.getProperty("java.class.path");
+        String[] cmd = dir == null ?
+            new String[] { java, "-cp", cp, "mjsi", file.toString() } :
+            new String[] { java, "-cp", cp, "mjsi", "--cache=" + dir, file.toString() };
+
+        return BenchmarkSuite.measure(() -> {
+            Process p = new ProcessBuilder(cmd)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectErrorStream(true)
+                .start();
+            if (p.waitFor() != 0)
+                throw new IllegalStateException("mjsi failed");
+        }).millis();
+    }
+
+    private static Path generate(int kb) throws IOException {
+        String example = new String(Files.readAllBytes(Paths.get("examples/closures.mjs")),
+            StandardCharsets.UTF_8);
+
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < kb * 1024)
+            sb.append("if (0) {\n").append(example).append("}\n");
+
+        Path file = Files.createTempFile("mjsi-cache-", ".mjs");
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+}
@@ -0,0 +1,51 @@
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.CharBuffer;
+
+import interpreter.Interpreter;
+import interpreter.InterpreterContext;
+import interpreter.command.Command;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Tempo para montar um texto de N linhas com "s = s + ..." e imprimi-lo
+// (o que obriga a montar o texto final). Com concatenação por cópia o tempo
+// cresce com o quadrado de N; com TextValue.concat, com N.
+//
+// Uso: java -cp <classes> bench.ConcatBenchmark [linhas ...]
+public class ConcatBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length == 0 ? new int[] { 1000, 10000, 100000 } : new int[args.length];
+        for (int i = 0; i < args.length; i++)
+            sizes[i] = Integer.parseInt(args[i]);
+
+        PrintStream out = System.out;
+        System.out.printf("%8s %10s %14s%n", "lines", "ms", "ns/line");
+        for (int n : sizes) {
+            Command cmd;
+            try (LexicalAnalysis l = new LexicalAnalysis(CharBuffer.wrap(generate(n)))) {
+                cmd = new SyntaticAnalysis(l, new InterpreterContext()).process();
+            }
+
+            // A saída do script não faz parte da medição.
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            double ms = BenchmarkSuite.measure(() -> Interpreter.interpret(cmd)).millis();
+            System.setOut(out);
+
+            System.out.printf("%8d %10.1f %14.0f%n", n, ms, ms * 1e6 / n);
+        }
+    }
+
+    private static String generate(int lines) {
+        return "{\n" +
+            "    let s = \"\";\n" +
+            "    let i = 0;\n" +
+            "    { while (i < " + lines + ") { s = s + \"line \" + i + \"; \"; i++; } }\n" +
+            "    console.log(s);\n" +
+            "}\n";
+    }
+
+}
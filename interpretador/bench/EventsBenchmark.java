@@ -0,0 +1,78 @@
+package bench;
+
+import java.nio.CharBuffer;
+
+import interpreter.Interpreter;
+import interpreter.InterpreterContext;
+import interpreter.command.Command;
+import interpreter.jfr.Statistics;
+import jdk.jfr.Recording;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Custo dos eventos do JFR (interpreter.jfr) em um script com muitas
+// chamadas, laços e valores criados: sem o JFR, com o JFR gravando só os
+// próprios eventos da JVM, com os eventos de chamada e de laço, e também
+// com as contagens periódicas (StatisticsEvent).
+//
+// O JFR não pode ser parado depois de iniciado, então os casos rodam nessa
+// ordem na mesma JVM.
+//
+// Uso: java -cp <classes> bench.EventsBenchmark
+public class EventsBenchmark {
+
+    private static final String SCRIPT =
+        "{\n" +
+        "    const fib = function() {\n" +
+        "        const n = params[0];\n" +
+        "        let r = n;\n" +
+        "        if (n >= 2) r = fib(n - 1) + fib(n - 2);\n" +
+        "        return r;\n" +
+        "    };\n" +
+        "    let s = 0;\n" +
+        "    let i = 0;\n" +
+        "    { while (i < 200000) { s = s + Math.sqrt(i); i++; } }\n" +
+        "    s = s + fib(20);\n" +
+        "}\n";
+
+    public static void main(String[] args) throws Exception {
+        Command cmd;
+        InterpreterContext context = new InterpreterContext();
+        try (LexicalAnalysis l = new LexicalAnalysis(CharBuffer.wrap(SCRIPT))) {
+            cmd = new SyntaticAnalysis(l, context).process();
+        }
+
+        System.out.printf("%-24s %10s%n", "recording", "ms");
+        System.out.printf("%-24s %10.1f%n", "none", measure(context, cmd));
+
+        Statistics.install();
+        try (Recording r = new Recording()) {
+            r.enable("jdk.GarbageCollection");
+            r.start();
+            System.out.printf("%-24s %10.1f%n", "JVM events only", measure(context, cmd));
+        }
+        try (Recording r = new Recording()) {
+            r.enable("miniJS.FunctionCall");
+            r.enable("miniJS.Loop");
+            r.start();
+            System.out.printf("%-24s %10.1f%n", "calls and loops", measure(context, cmd));
+        }
+        try (Recording r = new Recording()) {
+            r.enable("miniJS.FunctionCall");
+            r.enable("miniJS.Loop");
+            r.enable("miniJS.Statistics");
+            r.start();
+            System.out.printf("%-24s %10.1f%n", "with statistics", measure(context, cmd));
+        }
+    }
+
+    private static double measure(InterpreterContext context, Command cmd) throws Exception {
+        InterpreterContext saved = context.enter();
+        try {
+            return BenchmarkSuite.measure(() -> Interpreter.interpret(cmd)).millis();
+        } finally {
+            InterpreterContext.exit(saved);
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import interpreter.Interpreter;
+import interpreter.InterpreterContext;
+import interpreter.command.Command;
+import interpreter.vm.RegisterMachine;
+import interpreter.vm.VirtualMachine;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Compara o tempo de execução do interpretador de árvore, da máquina de
+// pilha e da máquina de registradores. Cada script é analisado uma única
+// vez e a mesma árvore é executada em todos os modos.
+//
+// Uso: java -cp <classes> bench.ExecutionBenchmark [script.mjs ...]
+public class ExecutionBenchmark {
+
+    private static final String[] SCRIPTS = {
+        "bench/scripts/loop.mjs",
+        "bench/scripts/calls.mjs",
+        "bench/scripts/forin.mjs",
+        "bench/scripts/counters.mjs"
+    };
+
+    public static void main(String[] args) throws Exception {
+        String[] scripts = args.length > 0 ? args : SCRIPTS;
+
+        PrintStream out = System.out;
+        System.out.printf("%-28s %10s %10s %12s%n", "script", "tree ms", "stack ms", "register ms");
+        for (String script : scripts) {
+            InterpreterContext context = new InterpreterContext();
+            Command cmd;
+            try (LexicalAnalysis l = LexicalAnalysis.fromFile(script)) {
+                cmd = new SyntaticAnalysis(l, context).process();
+            }
+
+            // A saída dos scripts não faz parte da medição. Todos os modos
+            // rodam com o contexto associado à thread, como no mjsi, para
+            // que paguem o mesmo controle de passos (Budget).
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            InterpreterContext saved = context.enter();
+            double tree, vm, reg;
+            try {
+                tree = BenchmarkSuite.measure(() -> Interpreter.interpret(cmd)).millis();
+                VirtualMachine stack = new VirtualMachine();
+                vm = BenchmarkSuite.measure(() -> stack.run(cmd)).millis();
+                RegisterMachine register = new RegisterMachine(context);
+                reg = BenchmarkSuite.measure(() -> register.run(cmd)).millis();
+            } finally {
+                InterpreterContext.exit(saved);
+                System.setOut(out);
+            }
+
+            System.out.printf("%-28s %10.1f %10.1f %12.1f%n", script, tree, vm, reg);
+        }
+    }
+
+}
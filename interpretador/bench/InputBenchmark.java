@@ -0,0 +1,119 @@
+package bench;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import interpreter.Interpreter;
+import interpreter.InterpreterContext;
+import interpreter.command.Command;
+import interpreter.input.LineReader;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Vazão (MB/s) da leitura de linhas de um arquivo de log gerado: com
+// BufferedReader, com LineReader e por um script que percorre
+// console.lines() (e outro que usa console.read()) contando as linhas.
+//
+// Uso: java -cp <classes> bench.InputBenchmark [MB]
+public class InputBenchmark {
+
+    private static final String LINES =
+        "{\n" +
+        "    let c = 0;\n" +
+        "    for (let l in console.lines()) c++;\n" +
+        "}\n";
+
+    private static final String READ =
+        "{\n" +
+        "    let c = 0;\n" +
+        "    let l = console.read();\n" +
+        "    { while (l != undefined) { c++; l = console.read(); } }\n" +
+        "}\n";
+
+    private interface Reading {
+        long run(Path file) throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int mb = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+
+        Path file = generate(mb);
+        try {
+            long bytes = Files.size(file);
+            System.out.printf("%d MB%n", mb);
+            System.out.printf("%-24s %10s%n", "reader", "MB/s");
+            report("BufferedReader", bytes, file, InputBenchmark::bufferedReader);
+            report("LineReader", bytes, file, InputBenchmark::lineReader);
+            report("console.lines()", bytes, file, f -> script(LINES, f));
+            report("console.read()", bytes, file, f -> script(READ, f));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void report(String name, long bytes, Path file, Reading r) throws Exception {
+        BenchmarkSuite.Result result = BenchmarkSuite.measure(() -> r.run(file));
+        System.out.printf("%-24s %10.1f%n", name, bytes / 1e6 / result.seconds());
+    }
+
+    private static long bufferedReader(Path file) throws IOException {
+        long n = 0;
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file.toFile()), StandardCharsets.UTF_8))) {
+            while (in.readLine() != null)
+                n++;
+        }
+        return n;
+    }
+
+    private static long lineReader(Path file) throws IOException {
+        long n = 0;
+        try (LineReader in = new LineReader(new FileInputStream(file.toFile()), StandardCharsets.UTF_8)) {
+            while (in.readLine() != null)
+                n++;
+        }
+        return n;
+    }
+
+    private static long script(String source, Path file) throws IOException {
+        InterpreterContext context = new InterpreterContext();
+        Command cmd;
+        try (LexicalAnalysis l = new LexicalAnalysis(CharBuffer.wrap(source))) {
+            cmd = new SyntaticAnalysis(l, context).process();
+        }
+
+        try (LineReader in = new LineReader(new FileInputStream(file.toFile()), StandardCharsets.UTF_8)) {
+            context.setInput(in);
+            InterpreterContext saved = context.enter();
+            try {
+                Interpreter.interpret(cmd);
+            } finally {
+                InterpreterContext.exit(saved);
+            }
+        }
+        return 0;
+    }
+
+    private static Path generate(int mb) throws IOException {
+        Path file = Files.createTempFile("mjsi-input-", ".log");
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            long size = 0;
+            for (int i = 0; size < mb * 1024L * 1024L; i++) {
+                String line = String.format("2024-01-01T00:00:%02d INFO request %d served in %d ms",
+                    i % 60, i, i % 997);
+                out.write(line);
+                out.newLine();
+                size += line.length() + 1;
+            }
+        }
+        return file;
+    }
+
+}
@@ -0,0 +1,63 @@
+package bench;
+
+import java.nio.CharBuffer;
+
+import lexical.LexicalAnalysis;
+import lexical.TableLexicalAnalysis;
+import lexical.Token;
+
+// Compara a vazão (MB/s) do analisador léxico por máquina de estados com a
+// do analisador dirigido por tabelas sobre o mesmo código-fonte em memória.
+//
+// Uso: java -cp <classes> bench.LexerBenchmark [MB]
+public class LexerBenchmark {
+
+    static final String SAMPLE =
+        "// Define a class like array.\n" +
+        "const array = function() {\n" +
+        "    const a = params[0];\n" +
+        "    let index = 0;\n" +
+        "    return {\n" +
+        "        length: function() { let c = 0; for (let e in a) c++; return c; },\n" +
+        "        next: function() { return a[index++]; }\n" +
+        "    };\n" +
+        "};\n" +
+        "let total = 0;\n" +
+        "while (total <= 1000 && total != 42 || false) { total = total + 1.5 * 2 - 3 / 4; }\n" +
+        "console.log(\"Length: \" + array([1,2,3]).length());\n";
+
+    public static void main(String[] args) throws Exception {
+        int mb = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < mb * 1024 * 1024)
+            sb.append(SAMPLE);
+        char[] source = sb.toString().toCharArray();
+
+        System.out.printf("%8s %10s %10s%n", "backend", "MB/s", "tokens");
+        run("state", source, false);
+        run("table", source, true);
+    }
+
+    private static void run(String name, char[] source, boolean table) throws Exception {
+        BenchmarkSuite.Result r = BenchmarkSuite.measure(() -> lex(source, table));
+        double mb = (double) source.length / (1024 * 1024);
+        System.out.printf("%8s %10.1f %10d%n", name, mb / r.seconds(), lex(source, table));
+    }
+
+    private static int lex(char[] source, boolean table) {
+        CharBuffer chars = CharBuffer.wrap(source);
+        LexicalAnalysis l = table ?
+            new TableLexicalAnalysis(chars) : new LexicalAnalysis(chars);
+
+        int count = 0;
+        Token t;
+        do {
+            t = l.nextToken();
+            count++;
+        } while (t.type != Token.Type.END_OF_FILE);
+
+        return count;
+    }
+
+}
@@ -0,0 +1,128 @@
+package bench;
+
+import java.nio.CharBuffer;
+
+import interpreter.Interpreter;
+import interpreter.InterpreterContext;
+import interpreter.command.Command;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Compara as funções da biblioteca padrão (StandardLibrary) com a mesma
+// operação escrita em miniJS. Cada caso executa "v = <expressão>" CALLS
+// vezes. As funções de texto não têm versão interpretada: a linguagem não
+// permite indexar textos.
+//
+// Uso: java -cp <classes> bench.LibraryBenchmark
+public class LibraryBenchmark {
+
+    private static final int CALLS = 20000;
+
+    private static final String LIST =
+        "    const a = [0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19];\n" +
+        "    const fresh = function() { return params; };\n";
+
+    private static final String TEXT =
+        "    let t = \"\";\n" +
+        "    { let i = 0; { while (i < 20) { t = t + \"lorem ipsum \" + i + \" \"; i++; } } }\n";
+
+    // Nome, preparação, expressão nativa, definição interpretada, expressão
+    // interpretada.
+    private static final String[][] CASES = {
+        { "Math.sqrt", "", "Math.sqrt(n + 1)",
+            "    const sqrt = function() {\n" +
+            "        const x = params[0];\n" +
+            "        let r = x;\n" +
+            "        let k = 0;\n" +
+            "        { while (k < 20) { r = (r + x / r) / 2; k++; } }\n" +
+            "        return r;\n" +
+            "    };\n",
+            "sqrt(n + 1)" },
+        { "Math.floor", "", "Math.floor(n / 3)", null, null },
+        { "List.length", LIST, "List.length(a)",
+            "    const length = function() {\n" +
+            "        let c = 0;\n" +
+            "        for (let e in params[0]) c++;\n" +
+            "        return c;\n" +
+            "    };\n",
+            "length(a)" },
+        { "List.indexOf", LIST, "List.indexOf(a, 19)",
+            "    const indexOf = function() {\n" +
+            "        const v = params[1];\n" +
+            "        let r = -1;\n" +
+            "        let i = 0;\n" +
+            "        for (let e in params[0]) {\n" +
+            "            if (r < 0 && e == v) r = i;\n" +
+            "            i++;\n" +
+            "        }\n" +
+            "        return r;\n" +
+            "    };\n",
+            "indexOf(a, 19)" },
+        { "List.push", LIST +
+            "    const fill = function() {\n" +
+            "        const l = fresh();\n" +
+            "        let i = 0;\n" +
+            "        { while (i < 20) { List.push(l, i); i++; } }\n" +
+            "        return l;\n" +
+            "    };\n",
+            "fill()",
+            "    const push = function() {\n" +
+            "        const l = params[0];\n" +
+            "        let c = 0;\n" +
+            "        for (let e in l) c++;\n" +
+            "        l[c] = params[1];\n" +
+            "        return c + 1;\n" +
+            "    };\n" +
+            "    const fill2 = function() {\n" +
+            "        const l = fresh();\n" +
+            "        let i = 0;\n" +
+            "        { while (i < 20) { push(l, i); i++; } }\n" +
+            "        return l;\n" +
+            "    };\n",
+            "fill2()" },
+        { "List.slice", LIST, "List.slice(a, 5, 15)",
+            "    const slice = function() {\n" +
+            "        const src = params[0];\n" +
+            "        const l = fresh();\n" +
+            "        let i = params[1];\n" +
+            "        let j = 0;\n" +
+            "        { while (i < params[2]) { l[j] = src[i]; i++; j++; } }\n" +
+            "        return l;\n" +
+            "    };\n",
+            "slice(a, 5, 15)" },
+        { "String.indexOf", TEXT, "String.indexOf(t, \"19\")", null, null },
+        { "String.slice", TEXT, "String.slice(t, 10, 50)", null, null },
+        { "String.split", TEXT, "String.split(t, \" \")", null, null },
+    };
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-16s %12s %16s %10s%n", "function", "native ms", "interpreted ms", "speedup");
+        for (String[] c : CASES) {
+            double n = measure(program(c[1], c[2]));
+            if (c[3] == null) {
+                System.out.printf("%-16s %12.2f %16s %10s%n", c[0], n, "-", "-");
+            } else {
+                double i = measure(program(c[1] + c[3], c[4]));
+                System.out.printf("%-16s %12.2f %16.2f %10.1f%n", c[0], n, i, i / n);
+            }
+        }
+    }
+
+    private static String program(String setup, String expr) {
+        return "{\n" + setup +
+            "    let v = 0;\n" +
+            "    let n = 0;\n" +
+            "    { while (n < " + CALLS + ") { v = " + expr + "; n++; } }\n" +
+            "}\n";
+    }
+
+    private static double measure(String source) throws Exception {
+        Command cmd;
+        try (LexicalAnalysis l = new LexicalAnalysis(CharBuffer.wrap(source))) {
+            cmd = new SyntaticAnalysis(l, new InterpreterContext()).process();
+        }
+
+        return BenchmarkSuite.measure(() -> Interpreter.interpret(cmd)).millis();
+    }
+
+}
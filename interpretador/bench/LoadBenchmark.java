@@ -0,0 +1,78 @@
+package bench;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import lexical.LexicalAnalysis;
+import lexical.Token;
+
+// Compara o tempo de partida (carga + análise léxica completa) de um script
+// lido por FileInputStream com o do mesmo script mapeado em memória.
+//
+// Uso: java -cp <classes> bench.LoadBenchmark [MB ...]
+public class LoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length == 0 ? new int[] { 1, 10, 100 } : new int[args.length];
+        for (int i = 0; i < args.length; i++)
+            sizes[i] = Integer.parseInt(args[i]);
+
+        System.out.printf("%8s %14s %14s%n", "MB", "stream (ms)", "mapped (ms)");
+        for (int mb : sizes) {
+            Path file = generate(mb);
+            try {
+                double stream = measure(file, false);
+                double mapped = measure(file, true);
+                System.out.printf("%8d %14.2f %14.2f%n", mb, stream, mapped);
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static double measure(Path file, boolean mapped) throws Exception {
+        return BenchmarkSuite.measure(() -> lex(file, mapped)).millis();
+    }
+
+    private static int lex(Path file, boolean mapped) throws IOException {
+        LexicalAnalysis l = mapped ?
+            LexicalAnalysis.fromFile(file.toString()) :
+            new LexicalAnalysis(new FileInputStream(file.toFile()));
+
+        int count = 0;
+        try (l) {
+            Token t;
+            do {
+                t = l.nextToken();
+                count++;
+            } while (t.type != Token.Type.END_OF_FILE &&
+                     t.type != Token.Type.INVALID_TOKEN &&
+                     t.type != Token.Type.UNEXPECTED_EOF);
+        }
+
+        return count;
+    }
+
+    private static Path generate(int mb) throws IOException {
+        Path file = Files.createTempFile("mjsi-load-", ".mjs");
+        long target = mb * 1024L * 1024L;
+        long written = 0;
+
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; written < target; i++) {
+                String line = String.format(
+                    "let v%d = v%d * 2.5 + \"texto çã %d\"; // comentário%n",
+                    i, i / 2, i);
+                w.write(line);
+                written += line.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+
+        return file;
+    }
+
+}
@@ -0,0 +1,91 @@
+package bench;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import interpreter.Interpreter;
+import interpreter.InterpreterContext;
+import interpreter.command.Command;
+import interpreter.output.AsyncSink;
+import interpreter.output.FlushPolicy;
+import interpreter.output.OutputSink;
+import interpreter.output.StreamSink;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Tempo de um script que imprime N linhas em um arquivo: direto no
+// System.out (uma escrita por linha, como antes dos sinks), com StreamSink
+// e com AsyncSink.
+//
+// Uso: java -cp <classes> bench.OutputBenchmark [linhas]
+public class OutputBenchmark {
+
+    private interface Sinks {
+        OutputSink open(FileOutputStream file);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        InterpreterContext context = new InterpreterContext();
+        Command cmd;
+        try (LexicalAnalysis l = new LexicalAnalysis(CharBuffer.wrap(generate(lines)))) {
+            cmd = new SyntaticAnalysis(l, context).process();
+        }
+
+        Path file = Files.createTempFile("mjsi-output-", ".txt");
+        try {
+            System.out.printf("%d lines%n", lines);
+            System.out.printf("%-12s %10s%n", "sink", "ms");
+            System.out.printf("%-12s %10.1f%n", "System.out",
+                measure(context, cmd, file, null));
+            System.out.printf("%-12s %10.1f%n", "StreamSink",
+                measure(context, cmd, file, f -> new StreamSink(f, FlushPolicy.SIZE)));
+            System.out.printf("%-12s %10.1f%n", "AsyncSink",
+                measure(context, cmd, file, f -> new AsyncSink(new StreamSink(f, FlushPolicy.SIZE))));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static String generate(int lines) {
+        return "{\n" +
+            "    let i = 0;\n" +
+            "    while (i < " + lines + ") { console.log(\"line \" + i); i++; }\n" +
+            "}\n";
+    }
+
+    // Com sinks == null o contexto não tem saída própria e escreve em um
+    // System.out com autoflush, como o da JVM. Abrir o arquivo entra na
+    // medição, mas é desprezível perto das linhas escritas.
+    private static double measure(InterpreterContext context, Command cmd, Path file, Sinks sinks)
+            throws Exception {
+        return BenchmarkSuite.measure(() -> {
+            PrintStream out = System.out;
+            try (FileOutputStream f = new FileOutputStream(file.toFile())) {
+                OutputSink sink = sinks != null ? sinks.open(f) : null;
+                if (sink == null)
+                    System.setOut(new PrintStream(new BufferedOutputStream(f), true));
+                context.setOutput(sink);
+
+                InterpreterContext saved = context.enter();
+                try {
+                    Interpreter.interpret(cmd);
+                } finally {
+                    InterpreterContext.exit(saved);
+                }
+                if (sink != null)
+                    sink.close();
+                else
+                    System.out.flush();
+            } finally {
+                System.setOut(out);
+            }
+        }).millis();
+    }
+
+}
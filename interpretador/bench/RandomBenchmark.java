@@ -0,0 +1,97 @@
+package bench;
+
+import java.nio.CharBuffer;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import interpreter.Interpreter;
+import interpreter.InterpreterContext;
+import interpreter.command.Command;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Custo de um número aleatório: um Random novo por chamada (como o antigo
+// console.random) contra o SplittableRandom do contexto; e o tempo de uma
+// estimativa de pi por Monte Carlo com Math.random() e com Math.randomList().
+//
+// Uso: java -cp <classes> bench.RandomBenchmark [pontos]
+public class RandomBenchmark {
+
+    private static final int CALLS = 1000000;
+
+    public static void main(String[] args) throws Exception {
+        int points = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        System.out.printf("%-28s %10s%n", "generator", "ns/call");
+        System.out.printf("%-28s %10.1f%n", "new Random().nextInt(2)", perCall(() -> {
+            double s = 0;
+            for (int i = 0; i < CALLS; i++)
+                s += new Random().nextInt(2);
+            return s;
+        }));
+        SplittableRandom random = new SplittableRandom(1);
+        System.out.printf("%-28s %10.1f%n", "SplittableRandom", perCall(() -> {
+            double s = 0;
+            for (int i = 0; i < CALLS; i++)
+                s += random.nextDouble();
+            return s;
+        }));
+
+        System.out.println();
+        System.out.printf("%-28s %10s%n", "pi, " + points + " points", "ms");
+        System.out.printf("%-28s %10.1f%n", "Math.random()", script(
+            "{\n" +
+            "    let inside = 0;\n" +
+            "    let i = 0;\n" +
+            "    { while (i < " + points + ") {\n" +
+            "        const x = Math.random();\n" +
+            "        const y = Math.random();\n" +
+            "        if (x * x + y * y < 1) inside++;\n" +
+            "        i++;\n" +
+            "    } }\n" +
+            "}\n"));
+        System.out.printf("%-28s %10.1f%n", "Math.randomList()", script(
+            "{\n" +
+            "    let inside = 0;\n" +
+            "    const xs = Math.randomList(" + points + ");\n" +
+            "    const ys = Math.randomList(" + points + ");\n" +
+            "    let i = 0;\n" +
+            "    { while (i < " + points + ") {\n" +
+            "        if (xs[i] * xs[i] + ys[i] * ys[i] < 1) inside++;\n" +
+            "        i++;\n" +
+            "    } }\n" +
+            "}\n"));
+    }
+
+    private interface Loop {
+        double run();
+    }
+
+    // A soma dos resultados é impressa se negativa (nunca), para que o JIT
+    // não descarte os laços.
+    private static double perCall(Loop loop) throws Exception {
+        double[] sink = new double[1];
+        double ns = BenchmarkSuite.measure(() -> sink[0] += loop.run()).nanos / CALLS;
+
+        if (sink[0] < 0)
+            System.out.println(sink[0]);
+        return ns;
+    }
+
+    private static double script(String source) throws Exception {
+        InterpreterContext context = new InterpreterContext();
+        context.setSeed(1);
+        Command cmd;
+        try (LexicalAnalysis l = new LexicalAnalysis(CharBuffer.wrap(source))) {
+            cmd = new SyntaticAnalysis(l, context).process();
+        }
+
+        InterpreterContext saved = context.enter();
+        try {
+            return BenchmarkSuite.measure(() -> Interpreter.interpret(cmd)).millis();
+        } finally {
+            InterpreterContext.exit(saved);
+        }
+    }
+
+}
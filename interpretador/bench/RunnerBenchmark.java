@@ -0,0 +1,56 @@
+package bench;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import interpreter.runner.ScriptResult;
+import interpreter.runner.ScriptRunner;
+
+// Vazão de ScriptRunner (scripts por segundo) com 1, 2, 4, ... scripts
+// simultâneos, até o número de núcleos da máquina.
+//
+// Uso: java -cp <classes> bench.RunnerBenchmark [script [scripts por rodada]]
+public class RunnerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String file = args.length > 0 ? args[0] : "examples/array.mjs";
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        String source = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%s, %d scripts/round, %d cores%n", file, count, cores);
+        System.out.printf("%12s %14s %10s%n", "concurrency", "scripts/s", "speedup");
+
+        double base = 0;
+        for (int n = 1; ; n = Math.min(n * 2, cores)) {
+            double rate;
+            try (ScriptRunner runner = new ScriptRunner(n)) {
+                rate = count / BenchmarkSuite.measure(() -> run(runner, source, count)).seconds();
+            }
+
+            if (base == 0)
+                base = rate;
+            System.out.printf("%12d %14.0f %10.2f%n", n, rate, rate / base);
+
+            if (n == cores)
+                break;
+        }
+    }
+
+    private static void run(ScriptRunner runner, String source, int count) {
+        List<CompletableFuture<ScriptResult>> results =
+            new ArrayList<CompletableFuture<ScriptResult>>(count);
+
+        for (int i = 0; i < count; i++)
+            results.add(runner.submit(source));
+        for (CompletableFuture<ScriptResult> r : results) {
+            if (r.join().getStatus() != ScriptResult.OK)
+                throw new IllegalStateException(r.join().getOutput());
+        }
+    }
+
+}
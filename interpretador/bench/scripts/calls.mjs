@@ -0,0 +1,7 @@
+// Chamadas de função com parâmetros.
+{
+    const add = function() { return params[0] + params[1]; };
+    let i = 0;
+    let s = 0;
+    while (i < 1000000) { s = add(s, i); i++; }
+}
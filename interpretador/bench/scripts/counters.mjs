@@ -0,0 +1,11 @@
+// Contadores pequenos em laços aninhados.
+{
+    let n = 0;
+    while (n < 30000) {
+        {
+            let j = 0;
+            while (j < 100) { let k = j * 2 - j; j++; }
+        }
+        n++;
+    }
+}
@@ -0,0 +1,7 @@
+// Iteração sobre listas com for-in.
+{
+    const list = [1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16];
+    let n = 0;
+    let s = 0;
+    while (n < 200000) { for (let e in list) s = s + e; n++; }
+}
@@ -0,0 +1,6 @@
+// Laço aritmético sobre variáveis locais.
+{
+    let i = 0;
+    let s = 0;
+    while (i < 3000000) { s = s + i * 2 - 1; i++; }
+}
@@ -0,0 +1,11 @@
+// Leitura e escrita de propriedades de objetos.
+{
+    const o = { x: 0, y: 0, z: 0 };
+    let i = 0;
+    while (i < 200000) {
+        o.x = o.x + 1;
+        o["y"] = o.y + o.x;
+        o.z = o["x"] - o.y;
+        i++;
+    }
+}
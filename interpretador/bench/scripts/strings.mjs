@@ -0,0 +1,12 @@
+// Construção de textos por concatenação.
+{
+    let n = 0;
+    while (n < 2000) {
+        {
+            let s = "";
+            let i = 0;
+            while (i < 50) { s = s + "x" + i; i++; }
+        }
+        n++;
+    }
+}
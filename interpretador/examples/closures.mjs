@@ -0,0 +1,33 @@
+// Each counter keeps the activation it was created in.
+const counter = function() {
+    let n = params[0];
+    return function() {
+        n = n + 1;
+        return n;
+    };
+};
+
+const c1 = counter(10);
+const c2 = counter(100);
+console.log(c1());
+console.log(c2());
+console.log(c1());
+console.log(c2());
+
+// A closure created by a closure.
+const adder = function() {
+    const a = params[0];
+    return function() {
+        const b = params[0];
+        return function() {
+            return a + b + params[0];
+        };
+    };
+};
+
+const add1 = adder(1);
+const add12 = add1(2);
+const add13 = add1(3);
+console.log(add12(10));
+console.log(add13(10));
+console.log(adder(100)(20)(3));
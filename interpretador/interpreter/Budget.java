@@ -0,0 +1,105 @@
+package interpreter;
+
+import java.util.concurrent.TimeUnit;
+
+import interpreter.ExecutionAbortedException.Reason;
+
+// Limites de execução de um contexto, contados em passos (cada volta de um
+// laço e cada chamada de uma função escrita em miniJS) e em tempo, e o
+// cancelamento vindo de outra thread.
+//
+// step() só decrementa um contador; a cada POLL passos (ou antes, se o
+// limite de passos estiver mais perto) é feita a verificação completa: o
+// cancelamento, o relógio e o limite de passos. Assim um cancel() ou o fim
+// do prazo são percebidos em no máximo POLL passos.
+//
+// Os limites devem ser definidos antes da execução. Só cancel() pode ser
+// chamado de outra thread; o resto segue a regra do contexto, de uma
+// thread de cada vez.
+public class Budget {
+
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    private static final int POLL = 1024;
+
+    private long maxSteps = UNLIMITED;
+    private long maxNanos = UNLIMITED;
+    private volatile boolean cancelled;
+
+    // Passos das fatias já verificadas; a fatia atual tem chunk passos, dos
+    // quais ainda restam countdown + 1.
+    private long used;
+    private int chunk;
+    private int countdown;
+    private long deadline;
+    private boolean started;
+
+    public long getMaxSteps() {
+        return maxSteps;
+    }
+
+    public void setMaxSteps(long maxSteps) {
+        if (maxSteps < 0)
+            throw new IllegalArgumentException("maxSteps < 0");
+        this.maxSteps = maxSteps;
+    }
+
+    public long getMaxTime(TimeUnit unit) {
+        return maxNanos == UNLIMITED ? UNLIMITED : unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // O prazo começa a contar no primeiro passo após reset().
+    public void setMaxTime(long time, TimeUnit unit) {
+        if (time < 0)
+            throw new IllegalArgumentException("time < 0");
+        this.maxNanos = time == UNLIMITED ? UNLIMITED : unit.toNanos(time);
+    }
+
+    // Passos dados desde reset(), contados até a última verificação.
+    public long getSteps() {
+        return used;
+    }
+
+    // Recomeça a contagem de passos e de tempo, como para uma nova execução
+    // no mesmo contexto. Um cancelamento continua valendo.
+    public void reset() {
+        used = 0;
+        chunk = 0;
+        countdown = 0;
+        started = false;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void step() {
+        if (--countdown < 0)
+            poll();
+    }
+
+    private void poll() {
+        used += chunk;
+        if (cancelled)
+            throw new ExecutionAbortedException(Reason.CANCELLED);
+        if (used >= maxSteps)
+            throw new ExecutionAbortedException(Reason.STEPS);
+
+        if (maxNanos != UNLIMITED) {
+            long now = System.nanoTime();
+            if (!started)
+                deadline = now + maxNanos;
+            else if (now - deadline >= 0)
+                throw new ExecutionAbortedException(Reason.TIME);
+        }
+        started = true;
+
+        chunk = (int) Math.min(POLL, maxSteps - used);
+        countdown = chunk - 1;
+    }
+
+}
@@ -9,26 +9,50 @@ import lexical.Token;
 public class Environment {
 
     private final Environment enclosing;
+    private final FrameLayout layout;
     private final Map<String, Variable> memory = new HashMap<>();
 
     public Environment() {
-        this(null);
+        this(null, new FrameLayout());
     }
 
+    // Escopo de bloco: as variáveis ficam no mesmo registro de ativação
+    // do escopo que o envolve.
     public Environment(Environment enclosing) {
+        this(enclosing, enclosing.layout);
+    }
+
+    public Environment(Environment enclosing, FrameLayout layout) {
         this.enclosing = enclosing;
+        this.layout = layout;
+    }
+
+    public FrameLayout getLayout() {
+        return layout;
     }
 
     public Variable declare(Token name, boolean constant) {
         if (memory.containsKey(name.lexeme))
             throw new InterpreterException(name.line);
 
-        Variable var = new Variable(name, constant);
+        Variable var = new Variable(name, constant, layout, layout.allocate());
         memory.put(name.lexeme, var);
 
         return var;
     }
 
+    // Registra uma variável criada fora do analisador (ex.: lida do cache).
+    public void bind(Variable var) {
+        if (memory.containsKey(var.getName()))
+            throw new InterpreterException(var.getLine());
+
+        memory.put(var.getName(), var);
+    }
+
+    public boolean binds(Variable var) {
+        return memory.get(var.getName()) == var;
+    }
+
     public Variable get(Token name) {
         if (memory.containsKey(name.lexeme))
             return memory.get(name.lexeme);
@@ -0,0 +1,31 @@
+package interpreter;
+
+// A execução foi interrompida pelo Budget do contexto: passos ou tempo
+// esgotados, ou cancel(). Não é um erro do script; quem executa deve tratá-la
+// separadamente de InterpreterException.
+public class ExecutionAbortedException extends RuntimeException {
+
+    public enum Reason {
+        STEPS("limite de passos excedido"),
+        TIME("limite de tempo excedido"),
+        CANCELLED("cancelada");
+
+        private final String message;
+
+        Reason(String message) {
+            this.message = message;
+        }
+    }
+
+    private final Reason reason;
+
+    public ExecutionAbortedException(Reason reason) {
+        super("Execução interrompida: " + reason.message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+}
@@ -0,0 +1,85 @@
+package interpreter;
+
+import java.util.Arrays;
+
+import interpreter.value.Value;
+
+// Disposição das variáveis de uma função (ou do programa principal) em um
+// registro de ativação: cada variável declarada recebe um índice fixo no
+// vetor de valores do registro.
+//
+// O registro ativo fica em "current". Uma função definida dentro de outra
+// (Closure) guarda os registros das funções que a envolvem no momento em
+// que foi criada e os torna ativos durante as suas chamadas; assim cada
+// uma enxerga a ativação em que nasceu, e não a mais recente. Ao sair da
+// última ativação o registro é mantido, o que só importa para as funções
+// criadas fora de qualquer ativação (nos literais avaliados na análise).
+// Uma FrameLayout pertence a um único programa e não deve ser usada por
+// mais de uma thread ao mesmo tempo.
+public class FrameLayout {
+
+    private final FrameLayout enclosing;
+    private int size;
+    private int depth;
+    private Value<?>[] current;
+
+    // O registro global do programa.
+    public FrameLayout() {
+        this(null);
+    }
+
+    // O registro de uma função definida no escopo de enclosing.
+    public FrameLayout(FrameLayout enclosing) {
+        this.enclosing = enclosing;
+        this.size = 0;
+        this.depth = 0;
+        this.current = null;
+    }
+
+    public FrameLayout getEnclosing() {
+        return enclosing;
+    }
+
+    // Registro de uma função (e não o global).
+    public boolean isFunction() {
+        return enclosing != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int allocate() {
+        int slot = size++;
+        if (current != null && slot >= current.length)
+            current = Arrays.copyOf(current, Math.max(size, current.length * 2));
+
+        return slot;
+    }
+
+    public Value<?>[] frame() {
+        if (current == null)
+            current = new Value<?>[size];
+
+        return current;
+    }
+
+    // O registro ativo, sem criá-lo; null fora de qualquer ativação.
+    public Value<?>[] active() {
+        return current;
+    }
+
+    public Value<?>[] enter(Value<?>[] frame) {
+        Value<?>[] saved = current;
+        current = frame;
+        depth++;
+
+        return saved;
+    }
+
+    public void exit(Value<?>[] saved) {
+        if (--depth > 0)
+            current = saved;
+    }
+
+}
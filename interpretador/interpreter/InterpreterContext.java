@@ -0,0 +1,180 @@
+package interpreter;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import interpreter.expr.Variable;
+import interpreter.function.NativeRegistry;
+import interpreter.input.LineReader;
+import interpreter.output.OutputSink;
+import interpreter.value.FunctionValue;
+import interpreter.value.ObjectValue;
+import lexical.Token;
+
+// Estado de um programa: as variáveis globais e o registro de ativação do
+// programa principal. Contextos diferentes não enxergam as variáveis uns dos
+// outros, mas compartilham os embutidos (os objetos globais do
+// NativeRegistry, como console e Math), que por isso não podem ser
+// alterados pelos scripts.
+//
+// Assim como FrameLayout, um contexto deve ser usado por uma thread de cada
+// vez. Enquanto um programa executa, o seu contexto fica associado à thread
+// (enter/exit), e é por ele que as funções nativas encontram a saída. A
+// exceção é cancel(), que pode ser chamado de qualquer thread.
+public class InterpreterContext {
+
+    private static final ThreadLocal<InterpreterContext> current =
+        new ThreadLocal<InterpreterContext>();
+
+    // Sem saída própria, cada linha vai direto para o System.out do momento.
+    private static final OutputSink SYSTEM_OUT = new OutputSink() {
+        @Override
+        public void println(String line) {
+            System.out.println(line);
+        }
+
+        @Override
+        public void flush() {
+            System.out.flush();
+        }
+
+        @Override
+        public void close() {
+            flush();
+        }
+    };
+
+    private static final NativeRegistry STANDARD = NativeRegistry.standard();
+
+    // System.in é um só; todos os contextos sem entrada própria compartilham
+    // o mesmo leitor, criado no primeiro uso.
+    private static class Stdin {
+        static final LineReader READER = new LineReader(System.in);
+    }
+
+    // Para funções nativas chamadas fora de um contexto.
+    private static class Unbound {
+        static final ThreadLocal<SplittableRandom> RANDOM =
+            ThreadLocal.withInitial(SplittableRandom::new);
+    }
+
+    private final NativeRegistry natives;
+    private final Environment globals;
+    private OutputSink output;
+    private LineReader input;
+    private SplittableRandom random;
+    private final Budget budget = new Budget();
+
+    // Quantidade de posições do registro global ocupadas pelos embutidos.
+    private final int builtins;
+
+    public InterpreterContext() {
+        this(STANDARD);
+    }
+
+    public InterpreterContext(NativeRegistry natives) {
+        natives.seal();
+        this.natives = natives;
+        this.globals = new Environment();
+
+        for (Map.Entry<String, ObjectValue> e : natives.getObjects().entrySet()) {
+            Variable var = globals.declare(new Token(e.getKey(), Token.Type.NAME, null), true);
+            var.initialize(e.getValue());
+        }
+
+        this.builtins = globals.getLayout().size();
+    }
+
+    public Environment getGlobals() {
+        return globals;
+    }
+
+    public OutputSink getOutput() {
+        return output != null ? output : SYSTEM_OUT;
+    }
+
+    public void setOutput(OutputSink output) {
+        this.output = output;
+    }
+
+    public LineReader getInput() {
+        return input != null ? input : Stdin.READER;
+    }
+
+    public void setInput(LineReader input) {
+        this.input = input;
+    }
+
+    // Sem semente, cada contexto recebe uma sequência diferente. O gerador
+    // é do contexto (que só é usado por uma thread de cada vez), de modo que
+    // scripts em paralelo não disputam um gerador comum.
+    public SplittableRandom getRandom() {
+        if (random == null)
+            random = new SplittableRandom();
+        return random;
+    }
+
+    public void setSeed(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    // Limites de passos e de tempo da execução; sem limites por padrão.
+    public Budget getBudget() {
+        return budget;
+    }
+
+    // Interrompe a execução em andamento neste contexto (e as próximas)
+    // com uma ExecutionAbortedException, em no máximo alguns milhares de
+    // passos. Uma espera por console.read() não é interrompida.
+    public void cancel() {
+        budget.cancel();
+    }
+
+    public InterpreterContext enter() {
+        InterpreterContext saved = current.get();
+        current.set(this);
+        return saved;
+    }
+
+    public static void exit(InterpreterContext saved) {
+        if (saved == null)
+            current.remove();
+        else
+            current.set(saved);
+    }
+
+    // Saída do contexto em execução na thread atual.
+    public static OutputSink output() {
+        InterpreterContext context = current.get();
+        return context != null ? context.getOutput() : SYSTEM_OUT;
+    }
+
+    // Entrada do contexto em execução na thread atual.
+    public static LineReader input() {
+        InterpreterContext context = current.get();
+        return context != null ? context.getInput() : Stdin.READER;
+    }
+
+    // Gerador do contexto em execução na thread atual.
+    public static SplittableRandom random() {
+        InterpreterContext context = current.get();
+        return context != null ? context.getRandom() : Unbound.RANDOM.get();
+    }
+
+    // Limites do contexto em execução na thread atual; null fora de um
+    // contexto, quando não há o que verificar.
+    public static Budget budget() {
+        InterpreterContext context = current.get();
+        return context != null ? context.budget : null;
+    }
+
+    public boolean isBuiltin(Variable var) {
+        return var.getLayout() == globals.getLayout() && var.getSlot() < builtins;
+    }
+
+    // Função nativa pelo nome completo (ex.: Math.sqrt); null se não existe.
+    public FunctionValue getNative(String name) {
+        return natives.getFunction(name);
+    }
+
+}
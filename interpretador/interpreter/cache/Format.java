@@ -0,0 +1,56 @@
+package interpreter.cache;
+
+// Marcas do formato binário dos scripts compilados (.mjsc).
+//
+// Um arquivo começa com MAGIC, VERSION, o SHA-256 do código-fonte e o CRC-32
+// do restante, seguidos da árvore de comandos em pré-ordem. Variáveis, registros de ativação,
+// listas, objetos e funções são gravados uma única vez; as ocorrências
+// seguintes usam REF e o índice da primeira.
+final class Format {
+
+    static final int MAGIC = 0x4d4a5343; // "MJSC"
+
+    // Deve ser incrementada sempre que os nós ou as enumerações mudarem.
+    static final int VERSION = 4;
+
+    static final int NULL = 0;
+    static final int REF = 1;
+
+    // Comandos.
+    static final int BLOCKS = 2;
+    static final int ASSIGN = 3;
+    static final int INITIALIZE = 4;
+    static final int DEBUG = 5;
+    static final int IF = 6;
+    static final int WHILE = 7;
+    static final int FOR = 8;
+
+    // Expressões.
+    static final int CONST = 9;
+    static final int VARIABLE = 10;
+    static final int ACCESS = 11;
+    static final int BINARY = 12;
+    static final int UNARY = 13;
+    static final int CONDITIONAL = 14;
+    static final int CALL = 15;
+    static final int CLOSURE = 27;
+
+    // Valores.
+    static final int NUMBER = 16;
+    static final int TEXT = 17;
+    static final int TRUE = 18;
+    static final int FALSE = 19;
+    static final int LIST = 20;
+    static final int OBJECT = 21;
+    static final int FUNCTION = 22;
+    static final int NATIVE = 23;
+
+    // Registros de ativação e escopo das variáveis.
+    static final int LAYOUT = 24;
+    static final int ROOT = 25;
+    static final int BUILTIN = 26;
+
+    private Format() {
+    }
+
+}
@@ -0,0 +1,157 @@
+package interpreter.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import interpreter.InterpreterContext;
+import interpreter.command.Command;
+
+// Cache persistente das árvores sintáticas (.mjsc), indexado pelo SHA-256
+// do código-fonte. Sem diretório, o arquivo fica ao lado do script,
+// com a extensão acrescentada ao nome inteiro (a.mjs -> a.mjs.mjsc), para
+// nunca coincidir com o próprio script, e é sobrescrito quando o fonte muda;
+// com diretório, cada conteúdo tem o seu arquivo (<sha-256>.mjsc). Um
+// arquivo existente que não seja um .mjsc nunca é sobrescrito.
+//
+// Falhas de leitura ou escrita nunca interrompem a execução: o script é
+// simplesmente analisado de novo. O mesmo vale para um arquivo corrompido,
+// que o CRC-32 da árvore gravada detecta antes da leitura.
+public class ScriptCache {
+
+    public static final String EXTENSION = ".mjsc";
+
+    private final Path directory;
+
+    public ScriptCache() {
+        this(null);
+    }
+
+    public ScriptCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public static byte[] digest(ByteBuffer source) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(source.duplicate());
+            return md.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Path pathFor(Path source, byte[] digest) {
+        if (directory == null)
+            return source.resolveSibling(source.getFileName() + EXTENSION);
+
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest)
+            sb.append(String.format("%02x", b));
+        return directory.resolve(sb.append(EXTENSION).toString());
+    }
+
+    // Devolve a árvore gravada para este conteúdo, com as variáveis globais
+    // declaradas no contexto, ou null se não houver.
+    public Command load(InterpreterContext context, Path source, byte[] digest) {
+        Path file = pathFor(source, digest);
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (in.getInt() != Format.MAGIC || in.getInt() != Format.VERSION)
+                return null;
+
+            byte[] stored = new byte[digest.length];
+            in.get(stored);
+            if (!Arrays.equals(stored, digest))
+                return null;
+
+            int checksum = in.getInt();
+            if (checksum != checksum(in.duplicate()))
+                return null;
+
+            return new TreeReader(in, context).readProgram();
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // O arquivo não existe ou começa com MAGIC (é um .mjsc de outra versão
+    // ou de outro conteúdo).
+    private static boolean replaceable(Path file) throws IOException {
+        if (!Files.exists(file))
+            return true;
+        if (!Files.isRegularFile(file))
+            return false;
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readInt() == Format.MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    private static int checksum(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    // Grava a árvore recém-analisada; deve ser chamado antes de executá-la.
+    public boolean store(InterpreterContext context, Path source, byte[] digest, Command cmd) {
+        Path file = pathFor(source, digest);
+        Path tmp = null;
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            if (directory != null)
+                Files.createDirectories(dir);
+            if (!replaceable(file))
+                return false;
+
+            ByteArrayOutputStream tree = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(tree)) {
+                new TreeWriter(out, context).writeCommand(cmd);
+            }
+            byte[] payload = tree.toByteArray();
+
+            tmp = Files.createTempFile(dir, ".mjsc-", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(Format.MAGIC);
+                out.writeInt(Format.VERSION);
+                out.write(digest);
+                out.writeInt(checksum(ByteBuffer.wrap(payload)));
+                out.write(payload);
+            }
+
+            // Outras execuções do mesmo script podem estar lendo o arquivo.
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+            return false;
+        }
+    }
+
+}
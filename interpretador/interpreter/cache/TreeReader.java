@@ -0,0 +1,303 @@
+package interpreter.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import interpreter.FrameLayout;
+import interpreter.Environment;
+import interpreter.InterpreterContext;
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DebugCommand;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.InitializeCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AcessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.ConditionalExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.FunctionCallExpr;
+import interpreter.expr.FunctionExpr;
+import interpreter.expr.SetExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.function.StandardFunction;
+import interpreter.value.BoolValue;
+import interpreter.value.FunctionValue;
+import interpreter.value.ListValue;
+import interpreter.value.NumberValue;
+import interpreter.value.ObjectValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+import lexical.Token;
+
+// Reconstrói a árvore gravada por TreeWriter. As variáveis globais só são
+// registradas nas globais do contexto depois que o arquivo inteiro foi lido,
+// para que um arquivo inválido não deixe nomes declarados pela metade.
+class TreeReader {
+
+    private static final BinaryExpr.Op[] BINARY_OPS = BinaryExpr.Op.values();
+    private static final UnaryExpr.Op[] UNARY_OPS = UnaryExpr.Op.values();
+
+    private final ByteBuffer in;
+    private final InterpreterContext context;
+    private final Environment globals;
+    private final List<Object> refs = new ArrayList<>();
+    private final List<Variable> bindings = new ArrayList<>();
+
+    TreeReader(ByteBuffer in, InterpreterContext context) {
+        this.in = in;
+        this.context = context;
+        this.globals = context.getGlobals();
+    }
+
+    Command readProgram() throws IOException {
+        Command cmd = readCommand();
+        for (Variable var : bindings)
+            globals.bind(var);
+
+        return cmd;
+    }
+
+    private Command readCommand() throws IOException {
+        int tag = readByte();
+        if (tag == Format.NULL)
+            return null;
+
+        int line = readInt();
+        switch (tag) {
+            case Format.BLOCKS: {
+                int n = readInt();
+                List<Command> cmds = new ArrayList<Command>(n);
+                for (int i = 0; i < n; i++)
+                    cmds.add(readCommand());
+                return new BlocksCommand(line, cmds);
+            }
+            case Format.ASSIGN: {
+                Expr rhs = readExpr();
+                SetExpr lhs = (SetExpr) readExpr();
+                return new AssignCommand(line, rhs, lhs);
+            }
+            case Format.INITIALIZE: {
+                Variable var = (Variable) readExpr();
+                return new InitializeCommand(line, var, readExpr());
+            }
+            case Format.DEBUG:
+                return new DebugCommand(line, readExpr());
+            case Format.IF: {
+                Expr expr = readExpr();
+                Command thenCmds = readCommand();
+                return new IfCommand(line, expr, thenCmds, readCommand());
+            }
+            case Format.WHILE: {
+                Expr expr = readExpr();
+                return new WhileCommand(line, expr, readCommand());
+            }
+            case Format.FOR: {
+                Variable var = (Variable) readExpr();
+                Expr expr = readExpr();
+                return new ForCommand(line, var, expr, readCommand());
+            }
+            default:
+                throw new IOException("Invalid command tag: " + tag);
+        }
+    }
+
+    private Expr readExpr() throws IOException {
+        int tag = readByte();
+        switch (tag) {
+            case Format.NULL:
+                return null;
+            case Format.REF:
+                return (Expr) refs.get(readInt());
+            case Format.BUILTIN: {
+                Variable var = globals.get(token(readText(), 0));
+                refs.add(var);
+                return var;
+            }
+            case Format.VARIABLE:
+                return readVariable();
+        }
+
+        int line = readInt();
+        switch (tag) {
+            case Format.CONST:
+                return new ConstExpr(line, readValue());
+            case Format.CLOSURE: {
+                Value<?> fv = readValue();
+                if (!(fv instanceof FunctionValue) || !(fv.value() instanceof StandardFunction))
+                    throw new IOException("Invalid function expression");
+                return new FunctionExpr(line, (StandardFunction) fv.value());
+            }
+            case Format.ACCESS: {
+                SetExpr base = (SetExpr) readExpr();
+                return new AcessExpr(line, base, readExpr());
+            }
+            case Format.BINARY: {
+                BinaryExpr.Op op = BINARY_OPS[readByte()];
+                Expr left = readExpr();
+                return new BinaryExpr(line, left, op, readExpr());
+            }
+            case Format.UNARY: {
+                UnaryExpr.Op op = UNARY_OPS[readByte()];
+                return new UnaryExpr(line, readExpr(), op);
+            }
+            case Format.CONDITIONAL: {
+                Expr cond = readExpr();
+                Expr trueExpr = readExpr();
+                return new ConditionalExpr(line, cond, trueExpr, readExpr());
+            }
+            case Format.CALL: {
+                Expr expr = readExpr();
+                int n = readInt();
+                List<Expr> args = new ArrayList<Expr>(n);
+                for (int i = 0; i < n; i++)
+                    args.add(readExpr());
+                return new FunctionCallExpr(line, expr, args);
+            }
+            default:
+                throw new IOException("Invalid expression tag: " + tag);
+        }
+    }
+
+    private Variable readVariable() throws IOException {
+        int id = reserve();
+        int line = readInt();
+        String name = readText();
+        boolean constant = readByte() != 0;
+        FrameLayout layout = readLayout();
+
+        Variable var;
+        if (layout == globals.getLayout()) {
+            boolean bound = readByte() != 0;
+            var = new Variable(token(name, line), constant, layout, layout.allocate());
+            if (bound)
+                bindings.add(var);
+        } else {
+            var = new Variable(token(name, line), constant, layout, readInt());
+        }
+
+        refs.set(id, var);
+        return var;
+    }
+
+    private FrameLayout readLayout() throws IOException {
+        int tag = readByte();
+        switch (tag) {
+            case Format.NULL:
+                return null;
+            case Format.ROOT:
+                return globals.getLayout();
+            case Format.REF:
+                return (FrameLayout) refs.get(readInt());
+            case Format.LAYOUT: {
+                int id = reserve();
+                int n = readInt();
+                FrameLayout layout = new FrameLayout(readLayout());
+                for (; n > 0; n--)
+                    layout.allocate();
+                refs.set(id, layout);
+                return layout;
+            }
+            default:
+                throw new IOException("Invalid layout tag: " + tag);
+        }
+    }
+
+    private Value<?> readValue() throws IOException {
+        int tag = readByte();
+        switch (tag) {
+            case Format.NULL:
+                return null;
+            case Format.REF:
+                return (Value<?>) refs.get(readInt());
+            case Format.NUMBER:
+                return NumberValue.of(in.getDouble());
+            case Format.TEXT:
+                return new TextValue(readText());
+            case Format.TRUE:
+                return BoolValue.TRUE;
+            case Format.FALSE:
+                return BoolValue.FALSE;
+            case Format.LIST: {
+                int n = readInt();
+                ListValue lv = new ListValue();
+                refs.add(lv);
+                for (int i = 0; i < n; i++)
+                    lv.add(readValue());
+                return lv;
+            }
+            case Format.OBJECT: {
+                int n = readInt();
+                ObjectValue ov = new ObjectValue();
+                refs.add(ov);
+                for (int i = 0; i < n; i++) {
+                    String key = readText();
+                    ov.put(key, readValue());
+                }
+                return ov;
+            }
+            case Format.NATIVE: {
+                String name = readText();
+                Value<?> fv = context.getNative(name);
+                if (fv == null)
+                    throw new IOException("Unknown native function: " + name);
+                refs.add(fv);
+                return fv;
+            }
+            case Format.FUNCTION: {
+                int id = reserve();
+                Variable params = (Variable) readExpr();
+                FrameLayout layout = readLayout();
+                Command cmds = readCommand();
+                Expr ret = readExpr();
+                FunctionValue fv = new FunctionValue(
+                    new StandardFunction(params, layout, cmds, ret));
+                refs.set(id, fv);
+                return fv;
+            }
+            default:
+                throw new IOException("Invalid value tag: " + tag);
+        }
+    }
+
+    private static Token token(String name, int line) {
+        Token t = new Token(name, Token.Type.NAME, null);
+        t.line = line;
+        return t;
+    }
+
+    private int reserve() {
+        refs.add(null);
+        return refs.size() - 1;
+    }
+
+    private int readByte() {
+        return in.get() & 0xff;
+    }
+
+    private String readText() throws IOException {
+        byte[] bytes = new byte[readInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int readInt() throws IOException {
+        int n = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = readByte();
+            n |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0)
+                return n;
+        }
+
+        throw new IOException("Malformed integer");
+    }
+
+}
@@ -0,0 +1,265 @@
+package interpreter.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import interpreter.FrameLayout;
+import interpreter.InterpreterContext;
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DebugCommand;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.InitializeCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AcessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.ConditionalExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.FunctionCallExpr;
+import interpreter.expr.FunctionExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.function.Function;
+import interpreter.function.NativeFunction;
+import interpreter.function.StandardFunction;
+import interpreter.value.BoolValue;
+import interpreter.value.FunctionValue;
+import interpreter.value.ListValue;
+import interpreter.value.NumberValue;
+import interpreter.value.ObjectValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Grava a árvore produzida pelo analisador sintático no formato de Format.
+// Deve ser usado antes da execução, enquanto os nós ainda não foram
+// especializados e os registros não receberam temporários das VMs.
+class TreeWriter {
+
+    private final DataOutputStream out;
+    private final InterpreterContext context;
+    private final FrameLayout root;
+    private final Map<Object, Integer> refs = new IdentityHashMap<>();
+
+    TreeWriter(DataOutputStream out, InterpreterContext context) {
+        this.out = out;
+        this.context = context;
+        this.root = context.getGlobals().getLayout();
+    }
+
+    void writeCommand(Command cmd) throws IOException {
+        if (cmd == null) {
+            out.writeByte(Format.NULL);
+        } else if (cmd instanceof BlocksCommand) {
+            List<Command> cmds = ((BlocksCommand) cmd).getCmds();
+            header(Format.BLOCKS, cmd.getLine());
+            writeInt(cmds.size());
+            for (Command c : cmds)
+                writeCommand(c);
+        } else if (cmd instanceof AssignCommand) {
+            AssignCommand acmd = (AssignCommand) cmd;
+            header(Format.ASSIGN, cmd.getLine());
+            writeExpr(acmd.getRhs());
+            writeExpr(acmd.getLhs());
+        } else if (cmd instanceof InitializeCommand) {
+            InitializeCommand icmd = (InitializeCommand) cmd;
+            header(Format.INITIALIZE, cmd.getLine());
+            writeExpr(icmd.getVar());
+            writeExpr(icmd.getExpr());
+        } else if (cmd instanceof DebugCommand) {
+            header(Format.DEBUG, cmd.getLine());
+            writeExpr(((DebugCommand) cmd).getExpr());
+        } else if (cmd instanceof IfCommand) {
+            IfCommand ifcmd = (IfCommand) cmd;
+            header(Format.IF, cmd.getLine());
+            writeExpr(ifcmd.getExpr());
+            writeCommand(ifcmd.getThenCmds());
+            writeCommand(ifcmd.getElseCmds());
+        } else if (cmd instanceof WhileCommand) {
+            WhileCommand wcmd = (WhileCommand) cmd;
+            header(Format.WHILE, cmd.getLine());
+            writeExpr(wcmd.getExpr());
+            writeCommand(wcmd.getCmds());
+        } else if (cmd instanceof ForCommand) {
+            ForCommand fcmd = (ForCommand) cmd;
+            header(Format.FOR, cmd.getLine());
+            writeExpr(fcmd.getVar());
+            writeExpr(fcmd.getExpr());
+            writeCommand(fcmd.getCmds());
+        } else {
+            throw new IOException("Unsupported command: " + cmd.getClass().getName());
+        }
+    }
+
+    void writeExpr(Expr expr) throws IOException {
+        if (expr == null) {
+            out.writeByte(Format.NULL);
+        } else if (expr instanceof Variable) {
+            writeVariable((Variable) expr);
+        } else if (expr instanceof ConstExpr) {
+            header(Format.CONST, expr.getLine());
+            writeValue(((ConstExpr) expr).getValue());
+        } else if (expr instanceof FunctionExpr) {
+            // O índice reservado corresponde ao FunctionValue que o leitor
+            // cria para a função.
+            header(Format.CLOSURE, expr.getLine());
+            reference(expr);
+            writeFunction(((FunctionExpr) expr).getFunction());
+        } else if (expr instanceof AcessExpr) {
+            AcessExpr aexpr = (AcessExpr) expr;
+            header(Format.ACCESS, expr.getLine());
+            writeExpr(aexpr.getBase());
+            writeExpr(aexpr.getIndex());
+        } else if (expr instanceof BinaryExpr) {
+            BinaryExpr bexpr = (BinaryExpr) expr;
+            header(Format.BINARY, expr.getLine());
+            out.writeByte(bexpr.getOp().ordinal());
+            writeExpr(bexpr.getLeft());
+            writeExpr(bexpr.getRight());
+        } else if (expr instanceof UnaryExpr) {
+            UnaryExpr uexpr = (UnaryExpr) expr;
+            header(Format.UNARY, expr.getLine());
+            out.writeByte(uexpr.getOp().ordinal());
+            writeExpr(uexpr.getExpr());
+        } else if (expr instanceof ConditionalExpr) {
+            ConditionalExpr cexpr = (ConditionalExpr) expr;
+            header(Format.CONDITIONAL, expr.getLine());
+            writeExpr(cexpr.getCond());
+            writeExpr(cexpr.getTrueExpr());
+            writeExpr(cexpr.getFalseExpr());
+        } else if (expr instanceof FunctionCallExpr) {
+            FunctionCallExpr fexpr = (FunctionCallExpr) expr;
+            header(Format.CALL, expr.getLine());
+            writeExpr(fexpr.getExpr());
+            writeInt(fexpr.getArgs().size());
+            for (Expr arg : fexpr.getArgs())
+                writeExpr(arg);
+        } else {
+            throw new IOException("Unsupported expression: " + expr.getClass().getName());
+        }
+    }
+
+    // As variáveis do registro global são realocadas na leitura; as demais
+    // mantêm a posição, já que o registro da função é recriado inteiro.
+    private void writeVariable(Variable var) throws IOException {
+        if (reference(var))
+            return;
+
+        if (context.isBuiltin(var)) {
+            out.writeByte(Format.BUILTIN);
+            writeText(var.getName());
+            return;
+        }
+
+        header(Format.VARIABLE, var.getLine());
+        writeText(var.getName());
+        out.writeBoolean(var.isConstant());
+        writeLayout(var.getLayout());
+        if (var.getLayout() == root)
+            out.writeBoolean(context.getGlobals().binds(var));
+        else
+            writeInt(var.getSlot());
+    }
+
+    private void writeLayout(FrameLayout layout) throws IOException {
+        if (layout == null) {
+            out.writeByte(Format.NULL);
+        } else if (layout == root) {
+            out.writeByte(Format.ROOT);
+        } else if (!reference(layout)) {
+            out.writeByte(Format.LAYOUT);
+            writeInt(layout.size());
+            writeLayout(layout.getEnclosing());
+        }
+    }
+
+    private void writeValue(Value<?> v) throws IOException {
+        if (v == null) {
+            out.writeByte(Format.NULL);
+        } else if (v instanceof NumberValue) {
+            out.writeByte(Format.NUMBER);
+            out.writeDouble(((NumberValue) v).doubleValue());
+        } else if (v instanceof TextValue) {
+            out.writeByte(Format.TEXT);
+            writeText(((TextValue) v).value());
+        } else if (v instanceof BoolValue) {
+            out.writeByte(((BoolValue) v).booleanValue() ? Format.TRUE : Format.FALSE);
+        } else if (reference(v)) {
+            return;
+        } else if (v instanceof ListValue) {
+            List<Value<?>> items = ((ListValue) v).value();
+            out.writeByte(Format.LIST);
+            writeInt(items.size());
+            for (Value<?> item : items)
+                writeValue(item);
+        } else if (v instanceof ObjectValue) {
+            Map<TextValue, Value<?>> items = ((ObjectValue) v).value();
+            out.writeByte(Format.OBJECT);
+            writeInt(items.size());
+            for (Map.Entry<TextValue, Value<?>> e : items.entrySet()) {
+                writeText(e.getKey().value());
+                writeValue(e.getValue());
+            }
+        } else if (v instanceof FunctionValue) {
+            writeFunction(((FunctionValue) v).value());
+        } else {
+            throw new IOException("Unsupported value: " + v.getClass().getName());
+        }
+    }
+
+    private void writeFunction(Function f) throws IOException {
+        if (f instanceof NativeFunction) {
+            out.writeByte(Format.NATIVE);
+            writeText(((NativeFunction) f).getName());
+        } else if (f instanceof StandardFunction) {
+            StandardFunction sf = (StandardFunction) f;
+            out.writeByte(Format.FUNCTION);
+            writeExpr(sf.getParams());
+            writeLayout(sf.getLayout());
+            writeCommand(sf.getCmds());
+            writeExpr(sf.getRet());
+        } else {
+            throw new IOException("Unsupported function: " + f.getClass().getName());
+        }
+    }
+
+    // Grava REF se o objeto já foi visto; senão, reserva o próximo índice.
+    private boolean reference(Object obj) throws IOException {
+        Integer id = refs.get(obj);
+        if (id != null) {
+            out.writeByte(Format.REF);
+            writeInt(id);
+            return true;
+        }
+
+        refs.put(obj, refs.size());
+        return false;
+    }
+
+    private void header(int tag, int line) throws IOException {
+        out.writeByte(tag);
+        writeInt(line);
+    }
+
+    private void writeText(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // Inteiro não negativo em 7 bits por byte.
+    private void writeInt(int n) throws IOException {
+        while ((n & ~0x7f) != 0) {
+            out.writeByte((n & 0x7f) | 0x80);
+            n >>>= 7;
+        }
+        out.writeByte(n);
+    }
+
+}
@@ -1,10 +1,11 @@
 package interpreter.command;
 
 import interpreter.expr.Expr;
+import interpreter.expr.ExprParent;
 import interpreter.expr.SetExpr;
 import interpreter.value.Value;
 
-public class AssignCommand extends Command {
+public class AssignCommand extends Command implements ExprParent {
 
     private Expr rhs;
     private SetExpr lhs;
@@ -16,9 +17,18 @@ public class AssignCommand extends Command {
     public AssignCommand (int line, Expr rhs, SetExpr lhs){
         super(line);
         this.rhs = rhs;
+        rhs.setParent(this);
         this.lhs = lhs;
     }
 
+    public Expr getRhs() {
+        return rhs;
+    }
+
+    public SetExpr getLhs() {
+        return lhs;
+    }
+
     @Override
     public void execute(){
         Value<?> v = rhs.expr();
@@ -27,4 +37,10 @@ public class AssignCommand extends Command {
             }
     }
     
+
+    @Override
+    public void replaceChild(Expr oldChild, Expr newChild) {
+        if (this.rhs == oldChild)
+            this.rhs = newChild;
+    }
 }
@@ -1,25 +1,41 @@
 package interpreter.command;
 
+import interpreter.InterpreterContext;
 import interpreter.expr.Expr;
+import interpreter.expr.ExprParent;
 import interpreter.value.Value;
 
-public class DebugCommand extends Command {
+public class DebugCommand extends Command implements ExprParent {
 
     private Expr expr;
 
     public DebugCommand(int line, Expr expr) {
         super(line);
         this.expr = expr;
+        expr.setParent(this);
+    }
+
+    public Expr getExpr() {
+        return expr;
     }
 
     @Override
     public void execute() {
-        Value<?> v = expr.expr();
+        print(expr.expr());
+    }
+
+    public static void print(Value<?> v) {
         if (v == null){
-            System.out.println("undefined");
+            InterpreterContext.output().println("undefined");
         } else {
-            System.out.println(v);
+            InterpreterContext.output().println(v.toString());
         }
     }
     
+
+    @Override
+    public void replaceChild(Expr oldChild, Expr newChild) {
+        if (this.expr == oldChild)
+            this.expr = newChild;
+    }
 }
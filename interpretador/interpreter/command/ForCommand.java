@@ -1,17 +1,21 @@
 package interpreter.command;
 
-import java.util.List;
-import java.util.Map;
+import java.util.Iterator;
 
+import interpreter.Budget;
+import interpreter.InterpreterContext;
 import interpreter.InterpreterException;
 import interpreter.expr.Expr;
+import interpreter.expr.ExprParent;
 import interpreter.expr.Variable;
+import interpreter.jfr.LoopEvent;
+import interpreter.jfr.Statistics;
+import interpreter.value.IteratorValue;
 import interpreter.value.ListValue;
 import interpreter.value.ObjectValue;
-import interpreter.value.TextValue;
 import interpreter.value.Value;
 
-public class ForCommand extends Command{
+public class ForCommand extends Command implements ExprParent {
 
     private Variable var;
     private Expr expr;
@@ -21,35 +25,64 @@ public class ForCommand extends Command{
         super(line);
         this.var = var;
         this.expr = expr;
+        expr.setParent(this);
         this.cmds = cmds;
     }
 
+    public Variable getVar() {
+        return var;
+    }
+
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public Command getCmds() {
+        return cmds;
+    }
+
     @Override
     public void execute() {
-        Value<?> v = this.expr.expr();
-
-        if(v instanceof ListValue){
-            ListValue lv = (ListValue) v;
-            List <Value<?>> ex = lv.value();
+        Iterator<Value<?>> it = iterator(this.expr.expr(), super.getLine());
 
-            for (Value<?> vf : ex){
-                var.setValue(vf);
-                cmds.execute();
-            }
+        LoopEvent event = null;
+        if (Statistics.isRecording()) {
+            event = new LoopEvent();
+            event.begin();
+        }
+        Budget budget = InterpreterContext.budget();
+        long n = 0;
+        while (it.hasNext()) {
+            var.setValue(it.next());
+            cmds.execute();
+            n++;
+            if (budget != null)
+                budget.step();
+        }
+        if (event != null)
+            event.finish(super.getLine(), n);
+    }
 
+    // Itera sobre os elementos de uma lista, os valores de um objeto ou uma
+    // sequência (IteratorValue).
+    public static Iterator<Value<?>> iterator(Value<?> v, int line) {
+        if(v instanceof ListValue){
+            return ((ListValue) v).iterator();
 
         } else if (v instanceof ObjectValue){
-            ObjectValue ov = (ObjectValue) v;
-            Map<TextValue, Value<?>> map = ov.value();
+            return ((ObjectValue) v).values();
 
-            for (TextValue i : map.keySet()) {
-                var.setValue(map.get(i));
-                cmds.execute();
-            }
+        } else if (v instanceof IteratorValue) {
+            return ((IteratorValue) v).value();
 
         } else {
-            throw new InterpreterException(super.getLine());
+            throw new InterpreterException(line);
         }
+    }
 
+    @Override
+    public void replaceChild(Expr oldChild, Expr newChild) {
+        if (this.expr == oldChild)
+            this.expr = newChild;
     }
 }
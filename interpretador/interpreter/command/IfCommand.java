@@ -1,10 +1,9 @@
 package interpreter.command;
 
 import interpreter.expr.Expr;
-import interpreter.value.BoolValue;
-import interpreter.value.Value;
+import interpreter.expr.ExprParent;
 
-public class IfCommand extends Command {
+public class IfCommand extends Command implements ExprParent {
 
     private Expr expr;
     private Command thenCmds;
@@ -17,14 +16,26 @@ public class IfCommand extends Command {
     public IfCommand(int line, Expr expr, Command thenCmds, Command elseCmds){
         super(line);
         this.expr = expr;
+        expr.setParent(this);
         this.thenCmds = thenCmds;
         this.elseCmds = elseCmds;
     }
 
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public Command getThenCmds() {
+        return thenCmds;
+    }
+
+    public Command getElseCmds() {
+        return elseCmds;
+    }
+
     @Override
     public void execute(){
-        Value <?> v = expr.expr();
-        boolean b = BoolValue.convert(v);
+        boolean b = expr.evalBoolean();
         
         if (b){
             thenCmds.execute();
@@ -32,4 +43,10 @@ public class IfCommand extends Command {
             elseCmds.execute();
         }
     }
+
+    @Override
+    public void replaceChild(Expr oldChild, Expr newChild) {
+        if (this.expr == oldChild)
+            this.expr = newChild;
+    }
 }
@@ -1,10 +1,11 @@
 package interpreter.command;
 
 import interpreter.expr.Expr;
+import interpreter.expr.ExprParent;
 import interpreter.expr.Variable;
 import interpreter.value.Value;
 
-public class InitializeCommand extends Command {
+public class InitializeCommand extends Command implements ExprParent {
     private Variable var;
     private Expr expr;
 
@@ -12,6 +13,15 @@ public class InitializeCommand extends Command {
         super(line);
         this.var = var;
         this.expr = expr;
+        expr.setParent(this);
+    }
+
+    public Variable getVar() {
+        return var;
+    }
+
+    public Expr getExpr() {
+        return expr;
     }
 
     @Override
@@ -20,4 +30,10 @@ public class InitializeCommand extends Command {
         var.initialize(v);
     }
     
+
+    @Override
+    public void replaceChild(Expr oldChild, Expr newChild) {
+        if (this.expr == oldChild)
+            this.expr = newChild;
+    }
 }
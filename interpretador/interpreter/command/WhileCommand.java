@@ -1,10 +1,13 @@
 package interpreter.command;
 
+import interpreter.Budget;
+import interpreter.InterpreterContext;
 import interpreter.expr.Expr;
-import interpreter.value.BoolValue;
-import interpreter.value.Value;
+import interpreter.expr.ExprParent;
+import interpreter.jfr.LoopEvent;
+import interpreter.jfr.Statistics;
 
-public class WhileCommand extends Command{
+public class WhileCommand extends Command implements ExprParent {
 
     private Expr expr;
     private Command cmds;
@@ -12,18 +15,44 @@ public class WhileCommand extends Command{
     public WhileCommand(int line, Expr expr, Command cmds){
         super(line);
         this.expr = expr;
+        expr.setParent(this);
         this.cmds = cmds;
     }
 
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public Command getCmds() {
+        return cmds;
+    }
+
     @Override
     public void execute(){
+            LoopEvent event = null;
+            if (Statistics.isRecording()) {
+                event = new LoopEvent();
+                event.begin();
+            }
+            Budget budget = InterpreterContext.budget();
+            long n = 0;
             while(true){
-                Value <?> v = expr.expr();
-                boolean b = BoolValue.convert(v);
+                boolean b = expr.evalBoolean();
                 if(!b)
                     break;
                 
                 cmds.execute();
+                n++;
+                if (budget != null)
+                    budget.step();
             }
+            if (event != null)
+                event.finish(super.getLine(), n);
+    }
+
+    @Override
+    public void replaceChild(Expr oldChild, Expr newChild) {
+        if (this.expr == oldChild)
+            this.expr = newChild;
     }
 }
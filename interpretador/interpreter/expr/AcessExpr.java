@@ -1,103 +1,222 @@
 package interpreter.expr;
 
-import java.util.List;
-import java.util.Map;
-
 import interpreter.InterpreterException;
 import interpreter.value.ListValue;
 import interpreter.value.NumberValue;
 import interpreter.value.ObjectValue;
+import interpreter.value.Shape;
 import interpreter.value.TextValue;
 import interpreter.value.Value;
 
-public class AcessExpr extends SetExpr {
+public class AcessExpr extends SetExpr implements ExprParent {
+
+    // Com o índice constante (obj.campo), a posição da propriedade é guardada
+    // por Shape: uma entrada (monomórfico) ou até IC_SIZE (polimórfico).
+    // Depois disso (megamórfico) a busca é sempre feita na Shape.
+    private static final int IC_SIZE = 4;
+
     private SetExpr base;
     private Expr index;
+    private String key;
+    private Shape[] shapes;
+    private int[] slots;
+    private int cached;
 
     public AcessExpr(int line, SetExpr base, Expr index){
         super(line);
         this.base = base;
         this.index = index;
+        this.key = keyOf(index);
+        base.setParent(this);
+        index.setParent(this);
+    }
+
+    public SetExpr getBase() {
+        return base;
+    }
+
+    public Expr getIndex() {
+        return index;
     }
 
     @Override
     public Value<?> expr(){
+        return value(base.expr());
+    }
 
+    // Em listas só de números lê direto o double, sem criar um NumberValue.
+    @Override
+    public double evalDouble() {
         Value<?> v = base.expr();
-        if (v instanceof ObjectValue) {
-            ObjectValue ov = (ObjectValue) v;
+        if (v instanceof ListValue && ((ListValue) v).isPacked()) {
+            ListValue lv = (ListValue) v;
+            int idx = (int) index.evalDouble();
+            return idx < 0 || idx >= lv.size() ? NumberValue.convert(null) : lv.getDouble(idx);
+        }
 
-            Value<?> i = index.expr();
-            String si = TextValue.convert(i);
+        return NumberValue.convert(value(v));
+    }
 
-            TextValue tv = new TextValue(si);
+    private Value<?> value(Value<?> v) {
+        if (key != null && v instanceof ObjectValue)
+            return load((ObjectValue) v);
 
-            Map<TextValue, Value<?>> value = ov.value();
+        if (!indexable(v))
+            throw new InterpreterException(super.getLine());
 
-            if(value.containsKey(tv)){
-                return value.get(tv);
+        return get(v, index.expr(), super.getLine());
+    }
 
-            } else{
-                return null;
+    public void setValue(Value<?> value){
+        Value<?> v = base.expr();
+        if (key != null && v instanceof ObjectValue) {
+            store((ObjectValue) v, value);
+            return;
+        }
+
+        if (!indexable(v))
+            throw new InterpreterException(super.getLine());
+
+        set(v, index.expr(), value, super.getLine());
+    }
+
+    private Value<?> load(ObjectValue ov) {
+        Shape s = ov.getShape();
+        if (s == null)
+            return ov.get(key);
+
+        for (int i = 0; i < cached; i++) {
+            if (shapes[i] == s)
+                return slots[i] < 0 ? null : ov.getSlot(slots[i]);
+        }
+
+        int slot = s.indexOf(key);
+        remember(s, slot);
+        return slot < 0 ? null : ov.getSlot(slot);
+    }
+
+    // Os objetos congelados podem ter a mesma Shape de outros; por isso não
+    // passam pelo cache.
+    private void store(ObjectValue ov, Value<?> value) {
+        Shape s = ov.getShape();
+        if (s != null && !ov.isFrozen()) {
+            for (int i = 0; i < cached; i++) {
+                if (shapes[i] == s && slots[i] >= 0) {
+                    ov.setSlot(slots[i], value);
+                    return;
+                }
+            }
+
+            int slot = s.indexOf(key);
+            if (slot >= 0) {
+                remember(s, slot);
+                ov.setSlot(slot, value);
+                return;
             }
+        }
+
+        try {
+            ov.put(key, value);
+        } catch (UnsupportedOperationException e) {
+            throw new InterpreterException(super.getLine());
+        }
+    }
+
+    private void remember(Shape s, int slot) {
+        if (cached < 0)
+            return;
+
+        if (cached == IC_SIZE) {
+            cached = -1;
+            shapes = null;
+            slots = null;
+            return;
+        }
+
+        if (shapes == null) {
+            shapes = new Shape[IC_SIZE];
+            slots = new int[IC_SIZE];
+        }
+        shapes[cached] = s;
+        slots[cached] = slot;
+        cached++;
+    }
 
+    private static String keyOf(Expr index) {
+        if (index instanceof ConstExpr) {
+            Value<?> v = ((ConstExpr) index).getValue();
+            if (v instanceof TextValue)
+                return ((TextValue) v).value();
+        }
+        return null;
+    }
+
+    public static boolean indexable(Value<?> v) {
+        return v instanceof ObjectValue || v instanceof ListValue;
+    }
+
+    public static Value<?> get(Value<?> v, Value<?> i, int line) {
+        if (v instanceof ObjectValue) {
+            return ((ObjectValue) v).get(TextValue.convert(i));
         } else if (v instanceof ListValue) {
             ListValue lv = (ListValue) v;
 
-            List<Value<?>> a = lv.value();
-
-            Value<?> i = index.expr();
             double idx = NumberValue.convert(i);
 
             int idxlv = (int) idx;
 
-            if(idxlv < 0 || idxlv >= a.size()){
+            if(idxlv < 0 || idxlv >= lv.size()){
                 return null;
 
             } else {
-                return a.get(idxlv);
+                return lv.get(idxlv);
             } 
             
         } else {
-            throw new InterpreterException(super.getLine());
+            throw new InterpreterException(line);
         }
 
     }
 
-    public void setValue(Value<?> value){
-        Value<?> v = base.expr();
+    public static void set(Value<?> v, Value<?> i, Value<?> value, int line) {
         if (v instanceof ObjectValue) {
             ObjectValue ov = (ObjectValue) v;
 
-            Value<?> i = index.expr();
-            String si = TextValue.convert(i);
-
-            TextValue tv = new TextValue(si);
-
-            Map<TextValue, Value<?>> mapv = ov.value();
-           
-            mapv.put(tv, value);
+            // Os objetos embutidos são compartilhados e não podem mudar.
+            try {
+                ov.put(TextValue.convert(i), value);
+            } catch (UnsupportedOperationException e) {
+                throw new InterpreterException(line);
+            }
 
         } else if (v instanceof ListValue) {
             ListValue lv = (ListValue) v;
 
-            List<Value<?>> a = lv.value();
-
-            Value<?> i = index.expr();
             double idx = NumberValue.convert(i);
 
             int idxlv = (int) idx;
 
-            if(idxlv < 0 || idxlv > a.size())
-                throw new InterpreterException(super.getLine());
+            if(idxlv < 0 || idxlv > lv.size())
+                throw new InterpreterException(line);
             else
-                a.add(idxlv, value);
+                lv.insert(idxlv, value);
                 
 
 
         } else {
-            throw new InterpreterException(super.getLine());
+            throw new InterpreterException(line);
         }
        
     }
+
+    @Override
+    public void replaceChild(Expr oldChild, Expr newChild) {
+        if (this.index == oldChild) {
+            this.index = newChild;
+            this.key = keyOf(newChild);
+            this.cached = 0;
+            this.shapes = null;
+            this.slots = null;
+        }
+    }
 }
@@ -5,7 +5,7 @@ import interpreter.value.NumberValue;
 import interpreter.value.TextValue;
 import interpreter.value.Value;
 
-public class BinaryExpr extends Expr {
+public class BinaryExpr extends Expr implements ExprParent {
     
     public static enum Op {
         And,
@@ -25,145 +25,308 @@ public class BinaryExpr extends Expr {
     private Expr left;
     private Op op;
     private Expr right;
+    private boolean specialize;
 
     public BinaryExpr(int line, Expr left, Op op, Expr right) {
         super(line);
         this.left = left;
         this.op = op;
         this.right = right;
+        this.specialize = true;
+        left.setParent(this);
+        right.setParent(this);
+    }
+
+    public Expr getLeft() {
+        return left;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public Expr getRight() {
+        return right;
     }
 
     @Override
     public Value<?> expr() {
+        switch (op) {
+            case And:
+            case Or:
+            case LowerThan:
+            case LowerEqual:
+            case GreaterThan:
+            case GreaterEqual:
+                return BoolValue.of(evalBoolean());
+            case Sub:
+            case Mul:
+            case Div:
+                return NumberValue.of(evalDouble());
+            case Add:
+                if (isNumeric())
+                    return NumberValue.of(evalDouble());
+                break;
+            default:
+                break;
+        }
+
         Value<?> v1 = left.expr();
         Value<?> v2 = right.expr();
+        if (specialize)
+            specialize(v1, v2);
 
-        Value<?> res;
+        return apply(v1, v2);
+    }
+
+    // Aplica o operador a valores já avaliados.
+    protected Value<?> apply(Value<?> v1, Value<?> v2) {
         switch (op) {
             case And:
-                res = andOp(v1, v2);
-                break;
+                return andOp(v1, v2);
             case Or:
-                res = orOp(v1, v2);
-                break;
+                return orOp(v1, v2);
             case Equal:
-                res = equalOp(v1, v2);
-                break;
+                return equalOp(v1, v2);
             case NotEqual:
-                res = notEqualOp(v1, v2);
-                break;
+                return notEqualOp(v1, v2);
             case LowerThan:
-                res = lowerThanOp(v1, v2);
-                break;
+                return lowerThanOp(v1, v2);
             case LowerEqual:
-                res = lowerEqualOp(v1, v2);
-                break;
+                return lowerEqualOp(v1, v2);
             case GreaterThan:
-                res = greaterThanOp(v1, v2);
-                break;
+                return greaterThanOp(v1, v2);
             case GreaterEqual:
-                res = greaterEqualOp(v1, v2);
-                break;
+                return greaterEqualOp(v1, v2);
             case Add:
-                res = addOp(v1, v2);
-                break;
+                return addOp(v1, v2);
             case Sub:
-                res = subOp(v1, v2);
-                break;
+                return subOp(v1, v2);
             case Mul:
-                res = mulOp(v1, v2);
-                break;
+                return mulOp(v1, v2);
             case Div:
             default:
-                res = divOp(v1, v2);
-                break;
+                return divOp(v1, v2);
+        }
+    }
+
+    // Na primeira avaliação, troca o nó por uma versão especializada nos
+    // tipos observados. Se os tipos mudarem depois, a versão especializada
+    // volta ao nó genérico (generalize), que não tenta de novo.
+    private void specialize(Value<?> v1, Value<?> v2) {
+        specialize = false;
+        if (op != Op.Add || left.isNumeric() || right.isNumeric() || getParent() == null)
+            return;
+
+        if (v1 instanceof NumberValue && v2 instanceof NumberValue)
+            replace(new NumberAddExpr(this));
+        else if (v1 instanceof TextValue && v2 instanceof TextValue)
+            replace(new TextConcatExpr(this));
+    }
+
+    protected BinaryExpr generalize() {
+        BinaryExpr generic = new BinaryExpr(getLine(), left, op, right);
+        generic.specialize = false;
+        replace(generic);
+
+        return generic;
+    }
+
+    @Override
+    public double evalDouble() {
+        switch (op) {
+            case Add:
+                return addDouble();
+            case Sub:
+                return left.evalDouble() - right.evalDouble();
+            case Mul:
+                return left.evalDouble() * right.evalDouble();
+            case Div:
+                return left.evalDouble() / right.evalDouble();
+            default:
+                return evalBoolean() ? 1.0 : 0.0;
+        }
+    }
+
+    @Override
+    public boolean evalBoolean() {
+        switch (op) {
+            case And: {
+                boolean b1 = left.evalBoolean();
+                boolean b2 = right.evalBoolean();
+                return b1 && b2;
+            }
+            case Or: {
+                boolean b1 = left.evalBoolean();
+                boolean b2 = right.evalBoolean();
+                return b1 || b2;
+            }
+            case Equal: {
+                Value<?> v1 = left.expr();
+                Value<?> v2 = right.expr();
+                return equal(v1, v2);
+            }
+            case NotEqual: {
+                Value<?> v1 = left.expr();
+                Value<?> v2 = right.expr();
+                return !equal(v1, v2);
+            }
+            case LowerThan:
+                return left.evalDouble() < right.evalDouble();
+            case LowerEqual:
+                return left.evalDouble() <= right.evalDouble();
+            case GreaterThan:
+                return left.evalDouble() > right.evalDouble();
+            case GreaterEqual:
+                return left.evalDouble() >= right.evalDouble();
+            case Add:
+                if (!isNumeric())
+                    return BoolValue.convert(expr());
+                return evalDouble() != 0.0;
+            default:
+                return evalDouble() != 0.0;
+        }
+    }
+
+    @Override
+    public boolean isNumeric() {
+        switch (op) {
+            case Sub:
+            case Mul:
+            case Div:
+                return true;
+            case Add:
+                return left.isNumeric() && right.isNumeric();
+            default:
+                return false;
+        }
+    }
+
+    // A soma só é numérica se os dois lados forem números. Lados que
+    // certamente são numéricos são avaliados como double; os demais são
+    // conferidos depois de avaliados e, se algum for texto, concatena-se.
+    private double addDouble() {
+        if (left.isNumeric()) {
+            double d1 = left.evalDouble();
+            if (right.isNumeric())
+                return d1 + right.evalDouble();
+
+            Value<?> v2 = right.expr();
+            if (v2 instanceof NumberValue)
+                return d1 + ((NumberValue) v2).doubleValue();
+
+            return NumberValue.convert(addOp(NumberValue.of(d1), v2));
         }
 
-        return res;
+        Value<?> v1 = left.expr();
+        if (v1 instanceof NumberValue && right.isNumeric())
+            return ((NumberValue) v1).doubleValue() + right.evalDouble();
+
+        Value<?> v2 = right.expr();
+        if (specialize)
+            specialize(v1, v2);
+
+        return NumberValue.convert(addOp(v1, v2));
     }
 
-    private Value<?> andOp(Value<?> v1, Value<?> v2) {
+    public static Value<?> andOp(Value<?> v1, Value<?> v2) {
         boolean b1 = BoolValue.convert(v1);
         boolean b2 = BoolValue.convert(v2);
-        BoolValue resultado = new BoolValue(b1 && b2);
+        BoolValue resultado = BoolValue.of(b1 && b2);
         return resultado;
     }
 
-    private Value<?> orOp(Value<?> v1, Value<?> v2) {
+    public static Value<?> orOp(Value<?> v1, Value<?> v2) {
         boolean b1 = BoolValue.convert(v1);
         boolean b2 = BoolValue.convert(v2);
-        BoolValue resultado = new BoolValue(b1 || b2);
+        BoolValue resultado = BoolValue.of(b1 || b2);
         return resultado;
     }
 
-    private Value<?> equalOp(Value<?> v1, Value<?> v2) {
-        return new BoolValue(v1.value() == v2.value());
+    public static Value<?> equalOp(Value<?> v1, Value<?> v2) {
+        return BoolValue.of(equal(v1, v2));
     }
 
-    private Value<?> notEqualOp(Value<?> v1, Value<?> v2) {
-        return new BoolValue(v1.value() != v2.value());
+    public static Value<?> notEqualOp(Value<?> v1, Value<?> v2) {
+        return BoolValue.of(!equal(v1, v2));
     }
 
-    private Value<?> lowerThanOp(Value<?> v1, Value<?> v2) {
+    // Números, textos e booleanos são comparados por valor; listas, objetos
+    // e funções, por identidade.
+    private static boolean equal(Value<?> v1, Value<?> v2) {
+        if (v1 instanceof NumberValue || v1 instanceof TextValue ||
+                v1 instanceof BoolValue)
+            return v1.equals(v2);
+
+        return v1 == v2;
+    }
+
+    public static Value<?> lowerThanOp(Value<?> v1, Value<?> v2) {
         double d1 = NumberValue.convert(v1);
         double d2 = NumberValue.convert(v2);
-        BoolValue resultado = new BoolValue(d1 < d2);
+        BoolValue resultado = BoolValue.of(d1 < d2);
         return resultado;
     }
 
-    private Value<?> lowerEqualOp(Value<?> v1, Value<?> v2) {
+    public static Value<?> lowerEqualOp(Value<?> v1, Value<?> v2) {
         double d1 = NumberValue.convert(v1);
         double d2 = NumberValue.convert(v2);
-        BoolValue resultado = new BoolValue(d1 <= d2);
+        BoolValue resultado = BoolValue.of(d1 <= d2);
         return resultado;
     }
 
-    private Value<?> greaterThanOp(Value<?> v1, Value<?> v2) {
+    public static Value<?> greaterThanOp(Value<?> v1, Value<?> v2) {
         double d1 = NumberValue.convert(v1);
         double d2 = NumberValue.convert(v2);
-        BoolValue resultado = new BoolValue(d1 > d2);
+        BoolValue resultado = BoolValue.of(d1 > d2);
         return resultado;
     }
 
-    private Value<?> greaterEqualOp(Value<?> v1, Value<?> v2) {
+    public static Value<?> greaterEqualOp(Value<?> v1, Value<?> v2) {
         double d1 = NumberValue.convert(v1);
         double d2 = NumberValue.convert(v2);
-        BoolValue resultado = new BoolValue(d1 >= d2);
+        BoolValue resultado = BoolValue.of(d1 >= d2);
         return resultado;
     }
 
-    private Value<?> addOp(Value<?> v1, Value<?> v2) {
+    public static Value<?> addOp(Value<?> v1, Value<?> v2) {
 
         if (v1 instanceof NumberValue && v2 instanceof NumberValue){
             double d1 = NumberValue.convert(v1);
             double d2 = NumberValue.convert(v2);
-            NumberValue resultado = new NumberValue(d1 + d2);
+            NumberValue resultado = NumberValue.of(d1 + d2);
             return resultado;
         } else {
-            String s1 = TextValue.convert(v1);
-            String s2 = TextValue.convert(v2);
-            TextValue resultado = new TextValue(s1 + s2);
-            return resultado;
+            TextValue t1 = v1 instanceof TextValue ? (TextValue) v1 : new TextValue(TextValue.convert(v1));
+            TextValue t2 = v2 instanceof TextValue ? (TextValue) v2 : new TextValue(TextValue.convert(v2));
+            return TextValue.concat(t1, t2);
         }
 
     }
 
-    private Value<?> subOp(Value<?> v1, Value<?> v2) {
+    public static Value<?> subOp(Value<?> v1, Value<?> v2) {
         double d1 = NumberValue.convert(v1);
         double d2 = NumberValue.convert(v2);
-        return new NumberValue(d1 - d2);
+        return NumberValue.of(d1 - d2);
     }
 
-    private Value<?> mulOp(Value<?> v1, Value<?> v2) {
+    public static Value<?> mulOp(Value<?> v1, Value<?> v2) {
         double d1 = NumberValue.convert(v1);
         double d2 = NumberValue.convert(v2);
-        return new NumberValue(d1 * d2);
+        return NumberValue.of(d1 * d2);
     }
 
-    private Value<?> divOp(Value<?> v1, Value<?> v2) {
+    public static Value<?> divOp(Value<?> v1, Value<?> v2) {
         double d1 = NumberValue.convert(v1);
         double d2 = NumberValue.convert(v2);
-        return new NumberValue(d1 / d2);
+        return NumberValue.of(d1 / d2);
     }
 
+    @Override
+    public void replaceChild(Expr oldChild, Expr newChild) {
+        if (this.left == oldChild)
+            this.left = newChild;
+        if (this.right == oldChild)
+            this.right = newChild;
+    }
 }
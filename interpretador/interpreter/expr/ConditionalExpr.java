@@ -3,7 +3,7 @@ package interpreter.expr;
 import interpreter.value.BoolValue;
 import interpreter.value.Value;
 
-public class ConditionalExpr extends Expr {
+public class ConditionalExpr extends Expr implements ExprParent {
     private Expr cond;
     private Expr trueExpr;
     private Expr falseExpr;
@@ -13,6 +13,21 @@ public class ConditionalExpr extends Expr {
         this.cond = cond;
         this.trueExpr = trueExpr;
         this.falseExpr = falseExpr;
+        cond.setParent(this);
+        trueExpr.setParent(this);
+        falseExpr.setParent(this);
+    }
+
+    public Expr getCond() {
+        return cond;
+    }
+
+    public Expr getTrueExpr() {
+        return trueExpr;
+    }
+
+    public Expr getFalseExpr() {
+        return falseExpr;
     }
 
     @Override
@@ -26,4 +41,14 @@ public class ConditionalExpr extends Expr {
         return b ? tE : fE;
     }
     
+
+    @Override
+    public void replaceChild(Expr oldChild, Expr newChild) {
+        if (this.cond == oldChild)
+            this.cond = newChild;
+        if (this.trueExpr == oldChild)
+            this.trueExpr = newChild;
+        if (this.falseExpr == oldChild)
+            this.falseExpr = newChild;
+    }
 }
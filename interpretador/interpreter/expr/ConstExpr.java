@@ -1,5 +1,6 @@
 package interpreter.expr;
 
+import interpreter.value.NumberValue;
 import interpreter.value.Value;
 
 public class ConstExpr extends Expr {
@@ -11,9 +12,18 @@ public class ConstExpr extends Expr {
         this.value = value;
     }
 
+    public Value<?> getValue() {
+        return value;
+    }
+
     @Override
     public Value<?> expr() {
         return value;
     }
+
+    @Override
+    public boolean isNumeric() {
+        return value instanceof NumberValue;
+    }
     
 }
@@ -1,10 +1,13 @@
 package interpreter.expr;
 
+import interpreter.value.BoolValue;
+import interpreter.value.NumberValue;
 import interpreter.value.Value;
 
 public abstract class Expr {
 
     private int line;
+    private ExprParent parent;
 
     protected Expr(int line) {
         this.line = line;
@@ -14,6 +17,43 @@ public abstract class Expr {
         return line;
     }
 
+    // O pai só é relevante para nós que podem ser substituídos; variáveis,
+    // por exemplo, são compartilhadas por todos os usos e nunca se trocam.
+    public ExprParent getParent() {
+        return parent;
+    }
+
+    public void setParent(ExprParent parent) {
+        this.parent = parent;
+    }
+
+    // Coloca a expressão dada no lugar desta, no mesmo pai. Sem pai (raiz de
+    // uma avaliação avulsa) não há o que trocar e devolve false.
+    protected boolean replace(Expr expr) {
+        if (parent == null)
+            return false;
+
+        expr.setParent(parent);
+        parent.replaceChild(this, expr);
+        return true;
+    }
+
     public abstract Value<?> expr();
 
+    // Avaliação sem criar valores intermediários. O resultado deve ser o
+    // mesmo de converter expr(); as subclasses sobrescrevem quando podem
+    // calcular direto com tipos primitivos.
+    public double evalDouble() {
+        return NumberValue.convert(expr());
+    }
+
+    public boolean evalBoolean() {
+        return BoolValue.convert(expr());
+    }
+
+    // Indica se a expressão sempre produz um NumberValue.
+    public boolean isNumeric() {
+        return false;
+    }
+
 }
@@ -0,0 +1,10 @@
+package interpreter.expr;
+
+// Nó da árvore que guarda expressões filhas. Permite que uma expressão se
+// substitua por outra (por exemplo, uma versão especializada) no lugar em
+// que foi usada.
+public interface ExprParent {
+
+    public void replaceChild(Expr oldChild, Expr newChild);
+
+}
@@ -1,15 +1,16 @@
 package interpreter.expr;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import interpreter.InterpreterException;
 import interpreter.function.Function;
+import interpreter.jfr.CallEvent;
+import interpreter.jfr.Statistics;
 import interpreter.value.FunctionValue;
 import interpreter.value.ListValue;
 import interpreter.value.Value;
 
-public class FunctionCallExpr extends Expr {
+public class FunctionCallExpr extends Expr implements ExprParent {
 
     private Expr expr;
     private List<Expr> args;
@@ -18,6 +19,17 @@ public class FunctionCallExpr extends Expr {
         super(line);
         this.expr = expr;
         this.args = args;
+        expr.setParent(this);
+        for (Expr e : args)
+            e.setParent(this);
+    }
+
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public List<Expr> getArgs() {
+        return args;
     }
     
     @Override
@@ -27,17 +39,35 @@ public class FunctionCallExpr extends Expr {
             FunctionValue fv = (FunctionValue) v;
             Function f = fv.value();
 
-            List<Value<?>> a = new ArrayList<Value<?>>();
-            for (Expr e : args)
-                a.add(e.expr());
+            Value<?>[] a = new Value<?>[args.size()];
+            for (int i = 0; i < a.length; i++)
+                a[i] = args.get(i).expr();
 
-            ListValue lv = new ListValue(a);
-            Variable params = f.getParams();
-            params.setValue(lv);
-            
-            return f.call();
+            return invoke(f, new ListValue(a));
         } else {
             throw new InterpreterException(super.getLine());
         }
     }
-}
\ No newline at end of file
+
+    // A chamada propriamente dita, com o alvo e os argumentos já avaliados.
+    protected Value<?> invoke(Function f, ListValue args) {
+        if (!Statistics.isRecording())
+            return f.call(args, super.getLine());
+
+        CallEvent event = new CallEvent();
+        event.begin();
+        Value<?> v = f.call(args, super.getLine());
+        event.finish(f, super.getLine());
+        return v;
+    }
+
+    @Override
+    public void replaceChild(Expr oldChild, Expr newChild) {
+        if (this.expr == oldChild)
+            this.expr = newChild;
+        for (int i = 0; i < args.size(); i++) {
+            if (args.get(i) == oldChild)
+                args.set(i, newChild);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package interpreter.expr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import interpreter.FrameLayout;
+import interpreter.function.Closure;
+import interpreter.function.StandardFunction;
+import interpreter.value.FunctionValue;
+import interpreter.value.Value;
+
+// Função literal dentro de outra função. Cada avaliação cria uma Closure
+// com os registros ativos das funções que a envolvem; as funções do nível
+// superior só enxergam as globais e continuam sendo ConstExpr.
+public class FunctionExpr extends Expr {
+
+    private final StandardFunction function;
+    private final FrameLayout[] layouts;
+
+    public FunctionExpr(int line, StandardFunction function) {
+        super(line);
+        this.function = function;
+
+        List<FrameLayout> list = new ArrayList<FrameLayout>();
+        for (FrameLayout l = function.getLayout().getEnclosing(); l.isFunction(); l = l.getEnclosing())
+            list.add(l);
+        this.layouts = list.toArray(new FrameLayout[0]);
+    }
+
+    public StandardFunction getFunction() {
+        return function;
+    }
+
+    @Override
+    public Value<?> expr() {
+        Value<?>[][] frames = new Value<?>[layouts.length][];
+        for (int i = 0; i < layouts.length; i++)
+            frames[i] = layouts[i].active();
+
+        return new FunctionValue(new Closure(function, layouts, frames));
+    }
+
+}
@@ -1,6 +1,5 @@
 package interpreter.expr;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import interpreter.value.ListValue;
@@ -16,13 +15,11 @@ public class ListExpr extends Expr{
 
     @Override
     public Value<?> expr(){
-        List<Value<?>> a = new ArrayList<Value<?>>();
+        ListValue lv = new ListValue();
 
         for(Expr e : items){
-            a.add(e.expr());
+            lv.add(e.expr());
         }
-
-        ListValue lv = new ListValue(a);
     
         return lv;
     }
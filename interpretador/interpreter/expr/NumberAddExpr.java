@@ -0,0 +1,45 @@
+package interpreter.expr;
+
+import interpreter.value.BoolValue;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Soma especializada para operandos que, até aqui, sempre foram números.
+public class NumberAddExpr extends BinaryExpr {
+
+    public NumberAddExpr(BinaryExpr expr) {
+        super(expr.getLine(), expr.getLeft(), Op.Add, expr.getRight());
+    }
+
+    @Override
+    public Value<?> expr() {
+        Value<?> v1 = getLeft().expr();
+        Value<?> v2 = getRight().expr();
+        if (v1 instanceof NumberValue && v2 instanceof NumberValue)
+            return NumberValue.of(((NumberValue) v1).doubleValue() +
+                ((NumberValue) v2).doubleValue());
+
+        return generalize().apply(v1, v2);
+    }
+
+    @Override
+    public double evalDouble() {
+        Value<?> v1 = getLeft().expr();
+        Value<?> v2 = getRight().expr();
+        if (v1 instanceof NumberValue && v2 instanceof NumberValue)
+            return ((NumberValue) v1).doubleValue() + ((NumberValue) v2).doubleValue();
+
+        return NumberValue.convert(generalize().apply(v1, v2));
+    }
+
+    @Override
+    public boolean evalBoolean() {
+        Value<?> v1 = getLeft().expr();
+        Value<?> v2 = getRight().expr();
+        if (v1 instanceof NumberValue && v2 instanceof NumberValue)
+            return ((NumberValue) v1).doubleValue() + ((NumberValue) v2).doubleValue() != 0.0;
+
+        return BoolValue.convert(generalize().apply(v1, v2));
+    }
+
+}
@@ -1,11 +1,8 @@
 package interpreter.expr;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import interpreter.value.ObjectValue;
-import interpreter.value.TextValue;
 import interpreter.value.Value;
 
 public class ObjectExpr extends Expr{
@@ -19,18 +16,12 @@ public class ObjectExpr extends Expr{
 
     @Override
     public Value<?> expr(){
-        Map<TextValue, Value<?>> value = new HashMap<TextValue, Value<?>>();
-        TextValue tv;
-        Value<?> v;
+        ObjectValue obj = new ObjectValue();
 
-        for(ObjectItem obj : items){
-            v = obj.value.expr();
-            tv = new TextValue(obj.key);
-            value.put(tv, v);
+        for(ObjectItem item : items){
+            obj.put(item.key, item.value.expr());
         }
 
-        ObjectValue obj = new ObjectValue(value);
-
         return obj;
     }
     
@@ -0,0 +1,36 @@
+package interpreter.expr;
+
+import interpreter.value.BoolValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Concatenação especializada para operandos que, até aqui, sempre foram
+// textos.
+public class TextConcatExpr extends BinaryExpr {
+
+    public TextConcatExpr(BinaryExpr expr) {
+        super(expr.getLine(), expr.getLeft(), Op.Add, expr.getRight());
+    }
+
+    @Override
+    public Value<?> expr() {
+        Value<?> v1 = getLeft().expr();
+        Value<?> v2 = getRight().expr();
+        if (v1 instanceof TextValue && v2 instanceof TextValue)
+            return TextValue.concat((TextValue) v1, (TextValue) v2);
+
+        return generalize().apply(v1, v2);
+    }
+
+    @Override
+    public double evalDouble() {
+        return NumberValue.convert(expr());
+    }
+
+    @Override
+    public boolean evalBoolean() {
+        return BoolValue.convert(expr());
+    }
+
+}
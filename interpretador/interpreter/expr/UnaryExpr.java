@@ -6,7 +6,7 @@ import interpreter.value.NumberValue;
 import interpreter.value.Value;
 
 
-public class UnaryExpr extends Expr {
+public class UnaryExpr extends Expr implements ExprParent {
 
     public static enum Op {
         Not,
@@ -25,93 +25,124 @@ public class UnaryExpr extends Expr {
         super(line);
         this.expr = expr;
         this.op = op;
+        expr.setParent(this);
+    }
+
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public Op getOp() {
+        return op;
     }
 
     public Value<?> expr() {
-        Value<?> v = this.expr.expr();
+        if (this.op == Op.Not)
+            return BoolValue.of(evalBoolean());
+
+        return NumberValue.of(evalDouble());
+    }
+
+    @Override
+    public double evalDouble() {
         switch (this.op) {
             case Not:
-                return notOp(v);
+                return this.expr.evalBoolean() ? 0.0 : 1.0;
             case Pos:
-                return posOp(v);
+                return this.expr.evalDouble();
             case Neg:
-                return negOp(v);
+                return -this.expr.evalDouble();
             case PreInc:
-                return preIncOp(v);
+                return preIncOp(this.expr.evalDouble());
             case PosInc:
-                return posIncOp(v);
+                return posIncOp(this.expr.evalDouble());
             case PreDec:
-                return preDecOp(v);
+                return preDecOp(this.expr.evalDouble());
             case PosDec:
             default:
-                return posDecOp(v);
+                return posDecOp(this.expr.evalDouble());
         }
     }
 
-    private Value<?> notOp(Value<?> v) {
+    @Override
+    public boolean evalBoolean() {
+        if (this.op == Op.Not)
+            return !this.expr.evalBoolean();
+
+        return evalDouble() != 0.0;
+    }
+
+    @Override
+    public boolean isNumeric() {
+        return this.op != Op.Not;
+    }
+
+    public static Value<?> notOp(Value<?> v) {
         boolean b = BoolValue.convert(v);
-        return new BoolValue(!b);
+        return BoolValue.of(!b);
     }
 
-    private Value<?> posOp(Value<?> v) {
+    public static Value<?> posOp(Value<?> v) {
         double n = NumberValue.convert(v);
-        return new NumberValue(n);
+        return NumberValue.of(n);
     }
 
-    private Value<?> negOp(Value<?> v) {
+    public static Value<?> negOp(Value<?> v) {
         double n = NumberValue.convert(v);
-        return new NumberValue(-n);
+        return NumberValue.of(-n);
     }
 
-    private Value<?> preIncOp(Value<?> v) {
-        double n = NumberValue.convert(v);
+    private double preIncOp(double n) {
         double res = n + 1;
 
         if (this.expr instanceof SetExpr)
-            ((SetExpr) this.expr).setValue(new NumberValue(res));
+            ((SetExpr) this.expr).setValue(NumberValue.of(res));
 
         else 
             throw new InterpreterException(super.getLine());
 
-        return new NumberValue(n+1);
+        return res;
     }
 
-    private Value<?> posIncOp(Value<?> v) {
-        double n = NumberValue.convert(v);
+    private double posIncOp(double n) {
         double res = n+1;
 
         if (this.expr instanceof SetExpr)
-            ((SetExpr) this.expr).setValue(new NumberValue(res));
+            ((SetExpr) this.expr).setValue(NumberValue.of(res));
 
         else 
             throw new InterpreterException(super.getLine());
 
-        return new NumberValue(n);
+        return n;
     }
 
-    private Value<?> preDecOp(Value<?> v) {
-        double n = NumberValue.convert(v);
+    private double preDecOp(double n) {
         double res = n-1;
 
         if (this.expr instanceof SetExpr)
-            ((SetExpr) this.expr).setValue(new NumberValue(res));
+            ((SetExpr) this.expr).setValue(NumberValue.of(res));
 
         else 
             throw new InterpreterException(super.getLine());
 
-        return new NumberValue(n-1);
+        return res;
     }
 
-    private Value<?> posDecOp(Value<?> v) {
-        double n = NumberValue.convert(v);
+    private double posDecOp(double n) {
         double res = n-1;
 
         if (this.expr instanceof SetExpr)
-            ((SetExpr) this.expr).setValue(new NumberValue(res));
+            ((SetExpr) this.expr).setValue(NumberValue.of(res));
 
         else 
             throw new InterpreterException(super.getLine());
 
-        return new NumberValue(n);
+        return n;
+    }
+
+    @Override
+    public void replaceChild(Expr oldChild, Expr newChild) {
+        if (this.expr == oldChild)
+            this.expr = newChild;
     }
 }
@@ -1,5 +1,6 @@
 package interpreter.expr;
 
+import interpreter.FrameLayout;
 import interpreter.InterpreterException;
 import interpreter.value.Value;
 import lexical.Token;
@@ -8,18 +9,16 @@ public class Variable extends SetExpr {
 
     private String name;
     private boolean constant;
-    private Value<?> value;
+    private FrameLayout layout;
+    private int slot;
 
-    public Variable(Token name) {
-        this(name, false);
-    }
-
-    public Variable(Token name, boolean constant) {
+    public Variable(Token name, boolean constant, FrameLayout layout, int slot) {
         super(name.line);
 
         this.name = name.lexeme;
         this.constant = constant;
-        this.value = null;
+        this.layout = layout;
+        this.slot = slot;
     }
 
     public String getName() {
@@ -30,19 +29,27 @@ public class Variable extends SetExpr {
         return this.constant;
     }
 
+    public FrameLayout getLayout() {
+        return this.layout;
+    }
+
+    public int getSlot() {
+        return this.slot;
+    }
+
     public void initialize(Value<?> value) {
-        this.value = value;
+        layout.frame()[slot] = value;
     }
 
     public Value<?> expr() {
-        return this.value;
+        return layout.frame()[slot];
     }
 
     public void setValue(Value<?> value) {
         if (this.isConstant())
             throw new InterpreterException(super.getLine());
 
-        this.value = value;
+        layout.frame()[slot] = value;
     }
 
 }
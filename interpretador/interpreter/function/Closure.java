@@ -0,0 +1,68 @@
+package interpreter.function;
+
+import interpreter.FrameLayout;
+import interpreter.value.ListValue;
+import interpreter.value.Value;
+
+// Função definida dentro de outra, com os registros de ativação das funções
+// que a envolvem no momento em que foi criada (FunctionExpr). Durante a
+// chamada esses registros voltam a ser os ativos das suas FrameLayouts, de
+// modo que dois valores criados por chamadas diferentes da mesma função
+// não compartilham variáveis.
+public class Closure extends Function {
+
+    private final StandardFunction function;
+    private final FrameLayout[] layouts;
+    private final Value<?>[][] frames;
+
+    public Closure(StandardFunction function, FrameLayout[] layouts, Value<?>[][] frames) {
+        super(function.getParams());
+        this.function = function;
+        this.layouts = layouts;
+        this.frames = frames;
+    }
+
+    public StandardFunction getFunction() {
+        return function;
+    }
+
+    // Ativa os registros capturados; o resultado deve ser passado a exit().
+    // Um registro null (a função foi criada fora de uma ativação) deixa a
+    // FrameLayout como está.
+    public Value<?>[][] enter() {
+        Value<?>[][] saved = new Value<?>[layouts.length][];
+        for (int i = 0; i < layouts.length; i++) {
+            if (frames[i] != null)
+                saved[i] = layouts[i].enter(frames[i]);
+        }
+        return saved;
+    }
+
+    public void exit(Value<?>[][] saved) {
+        for (int i = layouts.length - 1; i >= 0; i--) {
+            if (frames[i] != null)
+                layouts[i].exit(saved[i]);
+        }
+    }
+
+    @Override
+    public Value<?> call(ListValue args) {
+        Value<?>[][] saved = enter();
+        try {
+            return function.call(args);
+        } finally {
+            exit(saved);
+        }
+    }
+
+    @Override
+    public Value<?> call(ListValue args, int line) {
+        Value<?>[][] saved = enter();
+        try {
+            return function.call(args, line);
+        } finally {
+            exit(saved);
+        }
+    }
+
+}
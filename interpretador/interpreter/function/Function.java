@@ -1,6 +1,7 @@
 package interpreter.function;
 
 import interpreter.expr.Variable;
+import interpreter.value.ListValue;
 import interpreter.value.Value;
 
 public abstract class Function {
@@ -15,6 +16,12 @@ public abstract class Function {
         return params;
     }
 
-    public abstract Value<?> call();
+    // Chama a função com a lista de argumentos (params) desta chamada.
+    public abstract Value<?> call(ListValue args);
+
+    // Como call(args), para chamadas feitas pelo script na linha line.
+    public Value<?> call(ListValue args, int line) {
+        return call(args);
+    }
 
 }
\ No newline at end of file
@@ -1,84 +1,45 @@
 package interpreter.function;
 
-import java.util.Random;
-import java.util.Scanner;
-
+import interpreter.InterpreterException;
 import interpreter.expr.Variable;
-import interpreter.value.NumberValue;
-import interpreter.value.TextValue;
+import interpreter.value.ListValue;
 import interpreter.value.Value;
 
+// Função escrita em Java, registrada em um NativeRegistry.
 public class NativeFunction extends Function {
-    
-    private NativeOp op;
 
-    public static enum NativeOp {
-        log,
-        read,
-        random
+    // Argumentos de tipo errado devem lançar IllegalArgumentException, que
+    // vira um erro do script na linha da chamada.
+    public interface Body {
+        Value<?> call(ListValue args);
     }
 
+    private final String name;
+    private final Body body;
 
-   public NativeFunction (Variable params, NativeOp op){
+    public NativeFunction(Variable params, String name, Body body) {
         super(params);
-        this.op = op;
-   }
-
-    @Override
-    public Value<?> call(){
-
-
-        Value<?> res = null;
-
-        switch (op) {
-            case log:
-                logOp(getParams().expr());
-                break;
-
-            case read:
-                res = readOp();
-                break;
-
-            case random:
-            default:
-                res = randomOp();
-                break;
-        }
-
-        return res;
+        this.name = name;
+        this.body = body;
     }
 
-    private void logOp(Value<?>... valueParams){
-        StringBuilder sb = new StringBuilder();
-       
-        for (Value<?> v : valueParams){
-                sb.append(v.value());
-        }
-
-        String exit = sb.toString().substring(1, sb.length() - 1);
-        
-        if(exit.equals("null")){
-            System.out.println("undefined");
-        } else {
-            System.out.println(exit);
-        }
- 
+    // Nome completo: objeto.função (ex.: Math.sqrt).
+    public String getName() {
+        return name;
     }
 
-
-    private Value<?> readOp(){
-        Scanner in = new Scanner( System.in );
-        String exit = in.nextLine();
-        in.close();
-
-        return new TextValue(exit);
+    @Override
+    public Value<?> call(ListValue args) {
+        return body.call(args);
     }
 
-    private Value<?> randomOp(){
-        Random r = new Random();
-        int aux = r.nextInt(2);
-        double d = (double) aux;
-        return new NumberValue(d);
+    @Override
+    public Value<?> call(ListValue args, int line) {
+        try {
+            return body.call(args);
+        } catch (IllegalArgumentException e) {
+            throw new InterpreterException(line);
+        }
     }
-    
+
 }
@@ -0,0 +1,113 @@
+package interpreter.function;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+import interpreter.Environment;
+import interpreter.expr.Variable;
+import interpreter.value.FunctionValue;
+import interpreter.value.ListValue;
+import interpreter.value.NumberValue;
+import interpreter.value.ObjectValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+import lexical.Token;
+
+// Funções nativas oferecidas aos scripts, agrupadas em objetos globais
+// (console.log, Math.sqrt, ...). Cada InterpreterContext declara uma
+// constante global para cada objeto do seu registro.
+//
+// Os objetos são compartilhados por todos os contextos que usam o registro;
+// por isso, quando o primeiro contexto é criado, o registro é selado (seal)
+// e os objetos são congelados.
+public class NativeRegistry {
+
+    private final Environment environment = new Environment();
+    private final Map<String, ObjectValue> objects = new LinkedHashMap<String, ObjectValue>();
+    private final Map<String, FunctionValue> functions = new HashMap<String, FunctionValue>();
+    private boolean sealed;
+
+    // Registro com console, Math, String e List (ver StandardLibrary).
+    public static NativeRegistry standard() {
+        NativeRegistry registry = new NativeRegistry();
+        StandardLibrary.install(registry);
+        return registry;
+    }
+
+    public synchronized NativeRegistry define(String object, String name, NativeFunction.Body body) {
+        if (sealed)
+            throw new IllegalStateException("registry already in use");
+
+        ObjectValue ov = objects.get(object);
+        if (ov == null) {
+            ov = new ObjectValue();
+            objects.put(object, ov);
+        }
+
+        Environment fn = new Environment(environment);
+        Variable params = fn.declare(new Token("params", Token.Type.NAME, null), false);
+
+        String qualified = object + "." + name;
+        FunctionValue fv = new FunctionValue(new NativeFunction(params, qualified, body));
+        ov.put(name, fv);
+        functions.put(qualified, fv);
+        return this;
+    }
+
+    // Funções numéricas de um e de dois argumentos.
+    public NativeRegistry defineNumber(String object, String name, DoubleUnaryOperator op) {
+        return define(object, name, args -> NumberValue.of(op.applyAsDouble(number(args, 0))));
+    }
+
+    public NativeRegistry defineNumber(String object, String name, DoubleBinaryOperator op) {
+        return define(object, name,
+            args -> NumberValue.of(op.applyAsDouble(number(args, 0), number(args, 1))));
+    }
+
+    public synchronized void seal() {
+        if (sealed)
+            return;
+
+        for (ObjectValue ov : objects.values())
+            ov.freeze();
+        sealed = true;
+    }
+
+    // Os objetos globais, na ordem em que foram definidos.
+    public synchronized Map<String, ObjectValue> getObjects() {
+        return Collections.unmodifiableMap(objects);
+    }
+
+    // Pelo nome completo (objeto.função); null se não existe.
+    public synchronized FunctionValue getFunction(String name) {
+        return functions.get(name);
+    }
+
+    // Adaptadores de argumentos: o i-ésimo argumento convertido como nas
+    // operações do interpretador (um argumento ausente é undefined).
+
+    public static Value<?> arg(ListValue args, int i) {
+        return i < args.size() ? args.get(i) : null;
+    }
+
+    public static double number(ListValue args, int i) {
+        return i < args.size() ? args.getDouble(i) : NumberValue.convert(null);
+    }
+
+    public static String text(ListValue args, int i) {
+        return TextValue.convert(arg(args, i));
+    }
+
+    public static ListValue list(ListValue args, int i) {
+        Value<?> v = arg(args, i);
+        if (!(v instanceof ListValue))
+            throw new IllegalArgumentException("not a list");
+
+        return (ListValue) v;
+    }
+
+}
@@ -1,24 +1,70 @@
 package interpreter.function;
 
+import interpreter.Budget;
+import interpreter.FrameLayout;
+import interpreter.InterpreterContext;
 import interpreter.command.Command;
 import interpreter.expr.Expr;
+import interpreter.expr.ExprParent;
 import interpreter.expr.Variable;
+import interpreter.value.ListValue;
 import interpreter.value.Value;
 
-public class StandardFunction extends Function {
+public class StandardFunction extends Function implements ExprParent {
 
+    private FrameLayout layout;
     private Command cmds;
     private Expr ret;
 
-    public StandardFunction(Variable params, Command cmds, Expr ret) {
+    public StandardFunction(Variable params, FrameLayout layout, Command cmds, Expr ret) {
         super(params);
+        this.layout = layout;
         this.cmds = cmds;
         this.ret = ret;
+        if (ret != null)
+            ret.setParent(this);
+    }
+
+    public FrameLayout getLayout() {
+        return layout;
+    }
+
+    public Command getCmds() {
+        return cmds;
+    }
+
+    // Usado pelas passagens que reescrevem o corpo (Optimizer, Profiler).
+    public void setCmds(Command cmds) {
+        this.cmds = cmds;
+    }
+
+    public Expr getRet() {
+        return ret;
+    }
+
+    // Cada chamada tem o próprio registro de ativação, com os parâmetros e
+    // as variáveis locais; chamadas recursivas não se sobrepõem.
+    @Override
+    public Value<?> call(ListValue args) {
+        Budget budget = InterpreterContext.budget();
+        if (budget != null)
+            budget.step();
+
+        Value<?>[] frame = new Value<?>[layout.size()];
+        frame[getParams().getSlot()] = args;
+
+        Value<?>[] saved = layout.enter(frame);
+        try {
+            cmds.execute();
+            return ret != null ? ret.expr() : null;
+        } finally {
+            layout.exit(saved);
+        }
     }
 
     @Override
-    public Value<?> call() {
-        cmds.execute();
-        return ret != null ? ret.expr() : null;
+    public void replaceChild(Expr oldChild, Expr newChild) {
+        if (this.ret == oldChild)
+            this.ret = newChild;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,282 @@
+package interpreter.function;
+
+import static interpreter.function.NativeRegistry.arg;
+import static interpreter.function.NativeRegistry.list;
+import static interpreter.function.NativeRegistry.number;
+import static interpreter.function.NativeRegistry.text;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+import interpreter.InterpreterContext;
+import interpreter.expr.BinaryExpr;
+import interpreter.input.LineReader;
+import interpreter.value.IteratorValue;
+import interpreter.value.ListValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Os objetos globais padrão:
+//
+//  - console: log, read, readAll, lines, random (read devolve undefined no
+//    fim da entrada, readAll a lista das linhas restantes e lines uma
+//    sequência das linhas para "for (let l in console.lines())"; random
+//    devolve 0 ou 1);
+//  - Math: abs, ceil, floor, round, sqrt, pow, min, max, log, exp, random
+//    (em [0, 1)), randomInt(a, b) (inteiro em [a, b)) e randomList(n) (n
+//    números em [0, 1)), todos com o gerador do contexto;
+//  - String: length, charAt, indexOf, slice, toUpperCase, toLowerCase,
+//    trim, split (o texto é sempre o primeiro argumento);
+//  - List: length, push, indexOf, slice, join (a lista é sempre o primeiro
+//    argumento).
+//
+// As posições seguem as regras do JavaScript: em slice, posições negativas
+// contam a partir do final; indexOf devolve -1 quando não encontra.
+final class StandardLibrary {
+
+    private StandardLibrary() {
+    }
+
+    static void install(NativeRegistry r) {
+        defineConsole(r);
+        defineMath(r);
+        defineString(r);
+        defineList(r);
+    }
+
+    private static void defineConsole(NativeRegistry r) {
+        r.define("console", "log", StandardLibrary::log);
+        r.define("console", "read", StandardLibrary::read);
+        r.define("console", "readAll", StandardLibrary::readAll);
+        r.define("console", "lines", StandardLibrary::lines);
+        r.define("console", "random", StandardLibrary::random);
+    }
+
+    private static void defineMath(NativeRegistry r) {
+        r.defineNumber("Math", "abs", Math::abs);
+        r.defineNumber("Math", "ceil", Math::ceil);
+        r.defineNumber("Math", "floor", Math::floor);
+        r.defineNumber("Math", "round", StandardLibrary::round);
+        r.defineNumber("Math", "sqrt", Math::sqrt);
+        r.defineNumber("Math", "pow", Math::pow);
+        r.defineNumber("Math", "log", Math::log);
+        r.defineNumber("Math", "exp", Math::exp);
+
+        r.define("Math", "random", args -> NumberValue.of(InterpreterContext.random().nextDouble()));
+        r.define("Math", "randomInt", args -> NumberValue.of(
+            InterpreterContext.random().nextLong((long) number(args, 0), (long) number(args, 1))));
+        r.define("Math", "randomList", args -> {
+            double n = number(args, 0);
+            if (!(n >= 0 && n <= Integer.MAX_VALUE))
+                throw new IllegalArgumentException("invalid length");
+
+            SplittableRandom random = InterpreterContext.random();
+            ListValue lv = new ListValue();
+            for (int i = 0; i < (int) n; i++)
+                lv.add(random.nextDouble());
+            return lv;
+        });
+
+        r.define("Math", "min", args -> {
+            double min = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < args.size(); i++)
+                min = Math.min(min, args.getDouble(i));
+            return NumberValue.of(min);
+        });
+        r.define("Math", "max", args -> {
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < args.size(); i++)
+                max = Math.max(max, args.getDouble(i));
+            return NumberValue.of(max);
+        });
+    }
+
+    private static void defineString(NativeRegistry r) {
+        r.define("String", "length", args -> NumberValue.of(text(args, 0).length()));
+        r.define("String", "charAt", args -> {
+            String s = text(args, 0);
+            int i = (int) number(args, 1);
+            return new TextValue(i < 0 || i >= s.length() ? "" : s.substring(i, i + 1));
+        });
+        r.define("String", "indexOf", args -> {
+            String s = text(args, 0);
+            int from = args.size() > 2 ? (int) number(args, 2) : 0;
+            return NumberValue.of(s.indexOf(text(args, 1), Math.max(from, 0)));
+        });
+        r.define("String", "slice", args -> {
+            String s = text(args, 0);
+            int begin = position(args, 1, 0, s.length());
+            int end = position(args, 2, s.length(), s.length());
+            return new TextValue(begin < end ? s.substring(begin, end) : "");
+        });
+        r.define("String", "toUpperCase", args -> new TextValue(text(args, 0).toUpperCase()));
+        r.define("String", "toLowerCase", args -> new TextValue(text(args, 0).toLowerCase()));
+        r.define("String", "trim", args -> new TextValue(text(args, 0).trim()));
+        r.define("String", "split", args -> {
+            String s = text(args, 0);
+            String sep = text(args, 1);
+            ListValue parts = new ListValue();
+            if (sep.isEmpty()) {
+                for (int i = 0; i < s.length(); i++)
+                    parts.add(new TextValue(s.substring(i, i + 1)));
+                return parts;
+            }
+
+            int from = 0;
+            for (int i = s.indexOf(sep); i >= 0; i = s.indexOf(sep, from)) {
+                parts.add(new TextValue(s.substring(from, i)));
+                from = i + sep.length();
+            }
+            parts.add(new TextValue(s.substring(from)));
+            return parts;
+        });
+    }
+
+    private static void defineList(NativeRegistry r) {
+        r.define("List", "length", args -> NumberValue.of(list(args, 0).size()));
+        r.define("List", "push", args -> {
+            ListValue lv = list(args, 0);
+            for (int i = 1; i < args.size(); i++)
+                lv.add(args.get(i));
+            return NumberValue.of(lv.size());
+        });
+        r.define("List", "indexOf", args -> {
+            ListValue lv = list(args, 0);
+            Value<?> v = arg(args, 1);
+            if (lv.isPacked()) {
+                if (v instanceof NumberValue) {
+                    double d = ((NumberValue) v).doubleValue();
+                    for (int i = 0; i < lv.size(); i++) {
+                        if (lv.getDouble(i) == d)
+                            return NumberValue.of(i);
+                    }
+                }
+                return NumberValue.of(-1);
+            }
+
+            for (int i = 0; i < lv.size(); i++) {
+                Value<?> item = lv.get(i);
+                if (item == null ? v == null : BinaryExpr.equalOp(item, v).eval())
+                    return NumberValue.of(i);
+            }
+            return NumberValue.of(-1);
+        });
+        r.define("List", "slice", args -> {
+            ListValue lv = list(args, 0);
+            int begin = position(args, 1, 0, lv.size());
+            int end = position(args, 2, lv.size(), lv.size());
+            ListValue part = new ListValue();
+            for (int i = begin; i < end; i++)
+                part.add(lv.get(i));
+            return part;
+        });
+        r.define("List", "join", args -> {
+            ListValue lv = list(args, 0);
+            String sep = args.size() > 1 ? text(args, 1) : ",";
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < lv.size(); i++) {
+                if (i > 0)
+                    sb.append(sep);
+                sb.append(TextValue.convert(lv.get(i)));
+            }
+            return new TextValue(sb.toString());
+        });
+    }
+
+    // Como no JavaScript: o inteiro mais próximo, e nos empates o maior
+    // (-2.5 vira -2). floor(x + 0.5) erra quando a soma arredonda, como em
+    // 0.49999999999999994; a diferença x - floor(x) é sempre exata. Valores
+    // em [-0.5, 0) dão -0.
+    private static double round(double x) {
+        double f = Math.floor(x);
+        double r = x - f >= 0.5 ? f + 1 : f;
+        return r == 0 ? Math.copySign(0.0, x) : r;
+    }
+
+    // Posição do argumento i em [0, length]; negativa conta do final.
+    private static int position(ListValue args, int i, int missing, int length) {
+        if (i >= args.size())
+            return missing;
+
+        int p = (int) args.getDouble(i);
+        return p < 0 ? Math.max(length + p, 0) : Math.min(p, length);
+    }
+
+    private static Value<?> log(ListValue args) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(args.value());
+
+        String exit = sb.toString().substring(1, sb.length() - 1);
+
+        if (exit.equals("null")) {
+            InterpreterContext.output().println("undefined");
+        } else {
+            InterpreterContext.output().println(exit);
+        }
+        return null;
+    }
+
+    // O que o script imprimiu antes deve aparecer antes de cada leitura.
+    private static Value<?> read(ListValue args) {
+        InterpreterContext.output().flush();
+
+        String line = readLine(InterpreterContext.input());
+        return line == null ? null : new TextValue(line);
+    }
+
+    private static Value<?> readAll(ListValue args) {
+        InterpreterContext.output().flush();
+
+        LineReader in = InterpreterContext.input();
+        ListValue lines = new ListValue();
+        for (String line = readLine(in); line != null; line = readLine(in))
+            lines.add(new TextValue(line));
+        return lines;
+    }
+
+    private static Value<?> lines(ListValue args) {
+        InterpreterContext.output().flush();
+
+        LineReader in = InterpreterContext.input();
+        return new IteratorValue(new Iterator<Value<?>>() {
+            private String next;
+            private boolean fetched;
+
+            // A linha só é lida quando o laço pede, não antes.
+            @Override
+            public boolean hasNext() {
+                if (!fetched) {
+                    next = readLine(in);
+                    fetched = true;
+                }
+                return next != null;
+            }
+
+            @Override
+            public Value<?> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                fetched = false;
+                return new TextValue(next);
+            }
+        });
+    }
+
+    private static String readLine(LineReader in) {
+        try {
+            return in.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Value<?> random(ListValue args) {
+        return NumberValue.of(InterpreterContext.random().nextInt(2));
+    }
+
+}
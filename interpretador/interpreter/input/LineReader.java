@@ -0,0 +1,99 @@
+package interpreter.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+// Lê linhas de um fluxo de bytes com um único buffer, que só cresce quando
+// uma linha não cabe nele. Cada linha é decodificada direto do buffer para
+// a String, sem passar por um Reader; fora as Strings produzidas, a leitura
+// não aloca nada.
+//
+// O fim de linha é '\n' ou "\r\n". A codificação precisa representar '\n'
+// e '\r' com um byte só, como em ASCII (UTF-8, ISO-8859-1, ...).
+public class LineReader implements AutoCloseable {
+
+    public static final int DEFAULT_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final Charset charset;
+    private byte[] buffer;
+
+    // Bytes válidos em [start, end); até scan já se sabe que não há '\n'.
+    private int start;
+    private int scan;
+    private int end;
+    private boolean eof;
+
+    public LineReader(InputStream in) {
+        this(in, Charset.defaultCharset(), DEFAULT_SIZE);
+    }
+
+    public LineReader(InputStream in, Charset charset) {
+        this(in, charset, DEFAULT_SIZE);
+    }
+
+    public LineReader(InputStream in, Charset charset, int size) {
+        if (size < 1)
+            throw new IllegalArgumentException("size < 1");
+
+        this.in = in;
+        this.charset = charset;
+        this.buffer = new byte[size];
+    }
+
+    // A próxima linha, sem o fim de linha; null no fim do fluxo.
+    public synchronized String readLine() throws IOException {
+        for (;;) {
+            for (int i = scan; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    String line = decode(start, i);
+                    start = scan = i + 1;
+                    return line;
+                }
+            }
+            scan = end;
+
+            if (eof) {
+                if (start == end)
+                    return null;
+
+                String line = decode(start, end);
+                start = scan = end;
+                return line;
+            }
+
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            scan -= start;
+            start = 0;
+        }
+        if (end == buffer.length)
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+        int n = in.read(buffer, end, buffer.length - end);
+        if (n < 0)
+            eof = true;
+        else
+            end += n;
+    }
+
+    private String decode(int from, int to) {
+        if (to > from && buffer[to - 1] == '\r')
+            to--;
+        return new String(buffer, from, to - from, charset);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
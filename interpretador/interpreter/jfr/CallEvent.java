@@ -0,0 +1,46 @@
+package interpreter.jfr;
+
+import interpreter.function.Function;
+import interpreter.function.NativeFunction;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// Uma chamada de função feita pelo script. Só as chamadas mais longas que
+// o limite são gravadas; a contagem de todas fica no StatisticsEvent.
+@Name("miniJS.FunctionCall")
+@Label("Function Call")
+@Category("miniJS")
+@Description("A function call made by a script that took longer than the threshold")
+@StackTrace(false)
+@Threshold("20 ms")
+public class CallEvent extends Event {
+
+    @Label("Function")
+    @Description("Qualified name of a native function; empty for functions written in miniJS")
+    private String function;
+
+    @Label("Native")
+    private boolean nativeCall;
+
+    @Label("Line")
+    private int line;
+
+    public void finish(Function f, int line) {
+        end();
+        if (Statistics.counting)
+            Statistics.called(f);
+
+        if (shouldCommit()) {
+            this.nativeCall = f instanceof NativeFunction;
+            this.function = nativeCall ? ((NativeFunction) f).getName() : "";
+            this.line = line;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package interpreter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// A análise de um script (SyntaticAnalysis.process()). A análise léxica é
+// feita sob demanda pela sintática, então a duração do evento inclui as
+// duas; lexDuration é a parte gasta dentro do analisador léxico.
+@Name("miniJS.Compile")
+@Label("Script Compile")
+@Category("miniJS")
+@Description("Lexical and syntactic analysis of a script")
+@StackTrace(false)
+public class CompileEvent extends Event {
+
+    @Label("Tokens")
+    private int tokens;
+
+    @Label("Lines")
+    private int lines;
+
+    @Label("Lexing Time")
+    @Timespan(Timespan.NANOSECONDS)
+    private long lexDuration;
+
+    public void finish(int tokens, int lines, long lexDuration) {
+        end();
+        if (shouldCommit()) {
+            this.tokens = tokens;
+            this.lines = lines;
+            this.lexDuration = lexDuration;
+            commit();
+        }
+    }
+
+}
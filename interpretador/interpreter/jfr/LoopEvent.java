@@ -0,0 +1,35 @@
+package interpreter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// Um while ou for do interpretador de árvore que demorou mais que o limite.
+@Name("miniJS.Loop")
+@Label("Long Loop")
+@Category("miniJS")
+@Description("A while or for loop that ran longer than the threshold")
+@StackTrace(false)
+@Threshold("100 ms")
+public class LoopEvent extends Event {
+
+    @Label("Line")
+    private int line;
+
+    @Label("Iterations")
+    private long iterations;
+
+    public void finish(int line, long iterations) {
+        end();
+        if (shouldCommit()) {
+            this.line = line;
+            this.iterations = iterations;
+            commit();
+        }
+    }
+
+}
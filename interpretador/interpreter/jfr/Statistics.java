@@ -0,0 +1,118 @@
+package interpreter.jfr;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import interpreter.function.Function;
+import interpreter.function.NativeFunction;
+import interpreter.value.FunctionValue;
+import interpreter.value.ListValue;
+import interpreter.value.NumberValue;
+import interpreter.value.ObjectValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+
+// Contadores de valores criados e de funções chamadas, publicados pelo
+// StatisticsEvent. Só contam enquanto alguma gravação do JFR estiver com
+// esse evento ligado; fora disso, o custo é a leitura de counting em cada
+// valor criado.
+//
+// O interpretador só cria eventos depois de isRecording(): carregar a
+// primeira classe de evento inicia o JFR, o que custa algumas centenas de
+// milissegundos, mais do que a execução inteira de um script curto. Com o
+// JFR parado, cada ponto de emissão custa a leitura de um volatile.
+//
+// install() registra o evento periódico assim que o JFR for iniciado
+// (agora ou depois, por jcmd). As aplicações que embutem o interpretador
+// devem chamá-lo uma vez; o mjsi só o chama se o JFR já estiver iniciado,
+// para não pagar o registro a cada execução.
+public final class Statistics {
+
+    static volatile boolean counting;
+
+    private static final LongAdder NUMBERS = new LongAdder();
+    private static final LongAdder TEXTS = new LongAdder();
+    private static final LongAdder LISTS = new LongAdder();
+    private static final LongAdder OBJECTS = new LongAdder();
+    private static final LongAdder FUNCTIONS = new LongAdder();
+    private static final LongAdder OTHERS = new LongAdder();
+    private static final LongAdder STANDARD_CALLS = new LongAdder();
+    private static final LongAdder NATIVE_CALLS = new LongAdder();
+
+    private static boolean installed;
+
+    private Statistics() {
+    }
+
+    public static synchronized void install() {
+        if (installed || !FlightRecorder.isAvailable())
+            return;
+
+        installed = true;
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            // Chamado na hora se o JFR já estiver iniciado.
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                FlightRecorder.addPeriodicEvent(StatisticsEvent.class, Statistics::emit);
+                update();
+            }
+
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                update();
+            }
+        });
+    }
+
+    public static boolean isRecording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    public static boolean isCounting() {
+        return counting;
+    }
+
+    private static void update() {
+        counting = EventType.getEventType(StatisticsEvent.class).isEnabled();
+    }
+
+    // Chamado pelo construtor de Value, só quando counting.
+    public static void allocated(Value<?> v) {
+        if (v instanceof NumberValue)
+            NUMBERS.increment();
+        else if (v instanceof TextValue)
+            TEXTS.increment();
+        else if (v instanceof ListValue)
+            LISTS.increment();
+        else if (v instanceof ObjectValue)
+            OBJECTS.increment();
+        else if (v instanceof FunctionValue)
+            FUNCTIONS.increment();
+        else
+            OTHERS.increment();
+    }
+
+    static void called(Function f) {
+        if (f instanceof NativeFunction)
+            NATIVE_CALLS.increment();
+        else
+            STANDARD_CALLS.increment();
+    }
+
+    private static void emit() {
+        StatisticsEvent event = new StatisticsEvent();
+        event.numbers = NUMBERS.sumThenReset();
+        event.texts = TEXTS.sumThenReset();
+        event.lists = LISTS.sumThenReset();
+        event.objects = OBJECTS.sumThenReset();
+        event.functions = FUNCTIONS.sumThenReset();
+        event.others = OTHERS.sumThenReset();
+        event.standardCalls = STANDARD_CALLS.sumThenReset();
+        event.nativeCalls = NATIVE_CALLS.sumThenReset();
+        event.commit();
+    }
+
+}
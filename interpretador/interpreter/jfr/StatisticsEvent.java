@@ -0,0 +1,46 @@
+package interpreter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+// Contagens desde o evento anterior, emitido periodicamente depois de
+// Statistics.install().
+@Name("miniJS.Statistics")
+@Label("Interpreter Statistics")
+@Category("miniJS")
+@Description("Values allocated and functions called since the previous event")
+@StackTrace(false)
+@Period("1 s")
+public class StatisticsEvent extends Event {
+
+    @Label("Numbers")
+    long numbers;
+
+    @Label("Texts")
+    long texts;
+
+    @Label("Lists")
+    long lists;
+
+    @Label("Objects")
+    long objects;
+
+    @Label("Functions")
+    long functions;
+
+    @Label("Other Values")
+    long others;
+
+    @Label("Standard Calls")
+    @Description("Calls to functions written in miniJS")
+    long standardCalls;
+
+    @Label("Native Calls")
+    long nativeCalls;
+
+}
@@ -0,0 +1,343 @@
+package interpreter.optimizer;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import interpreter.InterpreterException;
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DebugCommand;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.InitializeCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AcessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.ConditionalExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.ExprParent;
+import interpreter.expr.FunctionCallExpr;
+import interpreter.expr.FunctionExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.function.StandardFunction;
+import interpreter.value.BoolValue;
+import interpreter.value.FunctionValue;
+import interpreter.value.ListValue;
+import interpreter.value.NumberValue;
+import interpreter.value.ObjectValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Otimizações sobre a árvore produzida por SyntaticAnalysis.process(), antes
+// da execução (-O1):
+//
+//  - operações cujos operandos são números, textos ou booleanos constantes
+//    são calculadas uma única vez e viram ConstExpr;
+//  - x * 1, 1 * x, x / 1, x - 0, +x e -(-x) viram x quando x é numérico;
+//  - em condições (if, while, ?:, &&, ||, !) !!x vira x;
+//  - if e while com condição constante perdem o ramo que nunca executa, e
+//    ?: com condição constante fica só com o ramo escolhido, se o outro
+//    não tiver efeitos colaterais (os dois ramos são sempre avaliados).
+//
+// Listas e objetos constantes não são usados nos cálculos: o mesmo valor
+// é devolvido a cada avaliação e pode ser alterado pelo programa.
+public class Optimizer {
+
+    private final Map<StandardFunction, Boolean> visited =
+        new IdentityHashMap<StandardFunction, Boolean>();
+
+    private Optimizer() {
+    }
+
+    // Devolve o comando otimizado, que pode não ser o mesmo objeto.
+    public static Command optimize(Command cmd) {
+        return new Optimizer().command(cmd);
+    }
+
+    private Command command(Command cmd) {
+        if (cmd instanceof BlocksCommand) {
+            List<Command> cmds = ((BlocksCommand) cmd).getCmds();
+            for (int i = 0; i < cmds.size(); i++)
+                cmds.set(i, command(cmds.get(i)));
+            return cmd;
+        } else if (cmd instanceof AssignCommand) {
+            AssignCommand acmd = (AssignCommand) cmd;
+            child(acmd, acmd.getRhs());
+            if (acmd.getLhs() != null)
+                expr(acmd.getLhs());
+            return cmd;
+        } else if (cmd instanceof InitializeCommand) {
+            InitializeCommand icmd = (InitializeCommand) cmd;
+            child(icmd, icmd.getExpr());
+            return cmd;
+        } else if (cmd instanceof DebugCommand) {
+            DebugCommand dcmd = (DebugCommand) cmd;
+            child(dcmd, dcmd.getExpr());
+            return cmd;
+        } else if (cmd instanceof IfCommand) {
+            IfCommand ifcmd = (IfCommand) cmd;
+            Expr cond = condition(ifcmd, ifcmd.getExpr());
+            Command thenCmds = command(ifcmd.getThenCmds());
+            Command elseCmds = ifcmd.getElseCmds() == null ? null : command(ifcmd.getElseCmds());
+
+            Value<?> c = constant(cond);
+            if (c != null) {
+                Command taken = BoolValue.convert(c) ? thenCmds : elseCmds;
+                return taken != null ? taken : empty(cmd.getLine());
+            }
+
+            if (thenCmds == ifcmd.getThenCmds() && elseCmds == ifcmd.getElseCmds())
+                return cmd;
+            return new IfCommand(cmd.getLine(), cond, thenCmds, elseCmds);
+        } else if (cmd instanceof WhileCommand) {
+            WhileCommand wcmd = (WhileCommand) cmd;
+            Expr cond = condition(wcmd, wcmd.getExpr());
+            Value<?> c = constant(cond);
+            if (c != null && !BoolValue.convert(c))
+                return empty(cmd.getLine());
+
+            Command body = command(wcmd.getCmds());
+            if (body == wcmd.getCmds())
+                return cmd;
+            return new WhileCommand(cmd.getLine(), cond, body);
+        } else if (cmd instanceof ForCommand) {
+            ForCommand fcmd = (ForCommand) cmd;
+            Expr expr = child(fcmd, fcmd.getExpr());
+            Command body = command(fcmd.getCmds());
+            if (body == fcmd.getCmds())
+                return cmd;
+            return new ForCommand(cmd.getLine(), fcmd.getVar(), expr, body);
+        } else {
+            return cmd;
+        }
+    }
+
+    // Otimiza a expressão filha e a substitui no pai, se mudou.
+    private Expr child(ExprParent parent, Expr e) {
+        Expr n = expr(e);
+        if (n != e) {
+            n.setParent(parent);
+            parent.replaceChild(e, n);
+        }
+        return n;
+    }
+
+    // Como child, para expressões usadas apenas como booleano.
+    private Expr condition(ExprParent parent, Expr e) {
+        Expr n = expr(e);
+        while (isNot(n) && isNot(((UnaryExpr) n).getExpr()))
+            n = ((UnaryExpr) ((UnaryExpr) n).getExpr()).getExpr();
+
+        if (n != e) {
+            n.setParent(parent);
+            parent.replaceChild(e, n);
+        }
+        return n;
+    }
+
+    private Expr expr(Expr e) {
+        if (e instanceof BinaryExpr) {
+            return binary((BinaryExpr) e);
+        } else if (e instanceof UnaryExpr) {
+            return unary((UnaryExpr) e);
+        } else if (e instanceof ConditionalExpr) {
+            ConditionalExpr cexpr = (ConditionalExpr) e;
+            Value<?> c = constant(condition(cexpr, cexpr.getCond()));
+            Expr trueExpr = child(cexpr, cexpr.getTrueExpr());
+            Expr falseExpr = child(cexpr, cexpr.getFalseExpr());
+            if (c != null) {
+                boolean b = BoolValue.convert(c);
+                if (pure(b ? falseExpr : trueExpr))
+                    return b ? trueExpr : falseExpr;
+            }
+            return e;
+        } else if (e instanceof AcessExpr) {
+            AcessExpr aexpr = (AcessExpr) e;
+            expr(aexpr.getBase());
+            child(aexpr, aexpr.getIndex());
+            return e;
+        } else if (e instanceof FunctionCallExpr) {
+            FunctionCallExpr fexpr = (FunctionCallExpr) e;
+            child(fexpr, fexpr.getExpr());
+            for (Expr arg : new ArrayList<Expr>(fexpr.getArgs()))
+                child(fexpr, arg);
+            return e;
+        } else if (e instanceof ConstExpr) {
+            functions(((ConstExpr) e).getValue());
+            return e;
+        } else if (e instanceof FunctionExpr) {
+            function(((FunctionExpr) e).getFunction());
+            return e;
+        } else {
+            return e;
+        }
+    }
+
+    private Expr binary(BinaryExpr e) {
+        BinaryExpr.Op op = e.getOp();
+        boolean logical = op == BinaryExpr.Op.And || op == BinaryExpr.Op.Or;
+        Expr left = logical ? condition(e, e.getLeft()) : child(e, e.getLeft());
+        Expr right = logical ? condition(e, e.getRight()) : child(e, e.getRight());
+
+        Value<?> v1 = constant(left);
+        Value<?> v2 = constant(right);
+        if (v1 != null && v2 != null) {
+            Value<?> v = apply(op, v1, v2);
+            if (v != null)
+                return new ConstExpr(e.getLine(), v);
+        }
+
+        switch (op) {
+            case Mul:
+                if (isNumber(v2, 1.0) && left.isNumeric())
+                    return left;
+                if (isNumber(v1, 1.0) && right.isNumeric())
+                    return right;
+                break;
+            case Div:
+                if (isNumber(v2, 1.0) && left.isNumeric())
+                    return left;
+                break;
+            case Sub:
+                // x + 0 não é trocado por x: -0 + 0 é 0.
+                if (isNumber(v2, 0.0) && left.isNumeric())
+                    return left;
+                break;
+            default:
+                break;
+        }
+
+        return e;
+    }
+
+    private Expr unary(UnaryExpr e) {
+        UnaryExpr.Op op = e.getOp();
+        Expr operand;
+        switch (op) {
+            case Not:
+                operand = condition(e, e.getExpr());
+                break;
+            case Pos:
+            case Neg:
+                operand = child(e, e.getExpr());
+                break;
+            default:
+                // ++ e -- alteram uma variável ou posição.
+                expr(e.getExpr());
+                return e;
+        }
+
+        Value<?> v = constant(operand);
+        if (v != null) {
+            switch (op) {
+                case Not:
+                    return new ConstExpr(e.getLine(), UnaryExpr.notOp(v));
+                case Pos:
+                    return new ConstExpr(e.getLine(), UnaryExpr.posOp(v));
+                default:
+                    return new ConstExpr(e.getLine(), UnaryExpr.negOp(v));
+            }
+        }
+
+        if (op == UnaryExpr.Op.Pos && operand.isNumeric())
+            return operand;
+        if (op == UnaryExpr.Op.Neg && operand instanceof UnaryExpr &&
+                ((UnaryExpr) operand).getOp() == UnaryExpr.Op.Neg &&
+                ((UnaryExpr) operand).getExpr().isNumeric())
+            return ((UnaryExpr) operand).getExpr();
+
+        return e;
+    }
+
+    private static Value<?> apply(BinaryExpr.Op op, Value<?> v1, Value<?> v2) {
+        try {
+            switch (op) {
+                case And:
+                    return BinaryExpr.andOp(v1, v2);
+                case Or:
+                    return BinaryExpr.orOp(v1, v2);
+                case Equal:
+                    return BinaryExpr.equalOp(v1, v2);
+                case NotEqual:
+                    return BinaryExpr.notEqualOp(v1, v2);
+                case LowerThan:
+                    return BinaryExpr.lowerThanOp(v1, v2);
+                case LowerEqual:
+                    return BinaryExpr.lowerEqualOp(v1, v2);
+                case GreaterThan:
+                    return BinaryExpr.greaterThanOp(v1, v2);
+                case GreaterEqual:
+                    return BinaryExpr.greaterEqualOp(v1, v2);
+                case Add:
+                    return BinaryExpr.addOp(v1, v2);
+                case Sub:
+                    return BinaryExpr.subOp(v1, v2);
+                case Mul:
+                    return BinaryExpr.mulOp(v1, v2);
+                case Div:
+                default:
+                    return BinaryExpr.divOp(v1, v2);
+            }
+        } catch (InterpreterException e) {
+            // O erro fica para a execução, com a linha certa.
+            return null;
+        }
+    }
+
+    // O valor de uma constante número, texto ou booleano; senão, null.
+    private static Value<?> constant(Expr e) {
+        if (!(e instanceof ConstExpr))
+            return null;
+
+        Value<?> v = ((ConstExpr) e).getValue();
+        if (v instanceof NumberValue || v instanceof TextValue || v instanceof BoolValue)
+            return v;
+
+        return null;
+    }
+
+    private static boolean isNumber(Value<?> v, double n) {
+        return v instanceof NumberValue && ((NumberValue) v).doubleValue() == n;
+    }
+
+    private static boolean isNot(Expr e) {
+        return e instanceof UnaryExpr && ((UnaryExpr) e).getOp() == UnaryExpr.Op.Not;
+    }
+
+    private static boolean pure(Expr e) {
+        return e instanceof ConstExpr || e instanceof Variable;
+    }
+
+    private static Command empty(int line) {
+        return new BlocksCommand(line, new ArrayList<Command>());
+    }
+
+    // Otimiza as funções criadas durante a análise (inclusive as guardadas
+    // em listas e objetos literais).
+    private void functions(Value<?> v) {
+        if (v instanceof FunctionValue && v.value() instanceof StandardFunction) {
+            function((StandardFunction) v.value());
+        } else if (v instanceof ListValue) {
+            for (Value<?> item : ((ListValue) v).value())
+                functions(item);
+        } else if (v instanceof ObjectValue) {
+            for (Value<?> item : ((ObjectValue) v).value().values())
+                functions(item);
+        }
+    }
+
+    private void function(StandardFunction sf) {
+        if (visited.put(sf, Boolean.TRUE) != null)
+            return;
+
+        sf.setCmds(command(sf.getCmds()));
+        if (sf.getRet() != null)
+            child(sf, sf.getRet());
+    }
+
+}
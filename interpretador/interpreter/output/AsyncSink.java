@@ -0,0 +1,143 @@
+package interpreter.output;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Passa as linhas para uma thread própria, que as escreve no sink de
+// destino; a thread do script só espera quando o buffer circular está
+// cheio. flush() e close() esperam até que tudo tenha sido escrito.
+public class AsyncSink implements OutputSink {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final OutputSink target;
+    private final String[] ring;
+    private final int mask;
+    private final Thread drainer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+
+    // Posições de leitura e de escrita; a ocupação é tail - head.
+    private long head;
+    private long tail;
+    private boolean writing;
+    private boolean closed;
+
+    public AsyncSink(OutputSink target) {
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    // A capacidade (em linhas) é arredondada para uma potência de 2.
+    public AsyncSink(OutputSink target, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity < 1");
+
+        int n = 1;
+        while (n < capacity)
+            n <<= 1;
+
+        this.target = target;
+        this.ring = new String[n];
+        this.mask = ring.length - 1;
+
+        this.drainer = new Thread(this::drain, "mjs-output");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    @Override
+    public void println(String line) {
+        lock.lock();
+        try {
+            if (closed)
+                throw new IllegalStateException("sink closed");
+
+            while (tail - head == ring.length)
+                notFull.awaitUninterruptibly();
+
+            ring[(int) (tail++ & mask)] = line;
+            if (tail - head == 1)
+                notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void flush() {
+        lock.lock();
+        try {
+            while (tail != head || writing)
+                drained.awaitUninterruptibly();
+        } finally {
+            lock.unlock();
+        }
+
+        target.flush();
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        boolean interrupted = false;
+        while (drainer.isAlive()) {
+            try {
+                drainer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+
+        target.close();
+    }
+
+    // Retira de uma vez todas as linhas disponíveis e as escreve fora do
+    // lock, para que o script possa continuar enchendo o buffer.
+    private void drain() {
+        String[] batch = new String[ring.length];
+        for (;;) {
+            int n = 0;
+            lock.lock();
+            try {
+                writing = false;
+                if (tail == head)
+                    drained.signalAll();
+
+                while (tail == head && !closed)
+                    notEmpty.awaitUninterruptibly();
+                if (tail == head)
+                    return;
+
+                while (head != tail) {
+                    int i = (int) (head++ & mask);
+                    batch[n++] = ring[i];
+                    ring[i] = null;
+                }
+                writing = true;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            for (int i = 0; i < n; i++) {
+                target.println(batch[i]);
+                batch[i] = null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,14 @@
+package interpreter.output;
+
+// Quando um StreamSink entrega o buffer ao fluxo de saída. Em todos os
+// casos o buffer também é entregue quando enche, em flush() e em close()
+// (ao final do programa).
+public enum FlushPolicy {
+    // A cada linha: uso interativo.
+    LINE,
+    // Só quando o buffer enche: scripts em lote.
+    SIZE,
+    // Como SIZE, e também periodicamente, para que a saída não fique parada
+    // no buffer quando o script imprime pouco.
+    TIME
+}
@@ -0,0 +1,17 @@
+package interpreter.output;
+
+// Destino de tudo o que um script imprime (console.log, debug e as mensagens
+// de erro do mjsi). Ver StreamSink e AsyncSink.
+public interface OutputSink extends AutoCloseable {
+
+    void println(String line);
+
+    // Entrega ao destino tudo o que já foi escrito.
+    void flush();
+
+    // Faz o flush e libera os recursos do sink; o fluxo de saída não é
+    // fechado.
+    @Override
+    void close();
+
+}
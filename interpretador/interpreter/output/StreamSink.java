@@ -0,0 +1,109 @@
+package interpreter.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Acumula as linhas em um buffer e as entrega ao fluxo de saída de acordo
+// com a FlushPolicy, em vez de uma escrita (e um flush) por linha como
+// System.out.println.
+//
+// Como PrintStream, erros de escrita não interrompem o script: a saída é
+// descartada e checkError() passa a devolver true.
+public class StreamSink implements OutputSink {
+
+    public static final int DEFAULT_SIZE = 64 * 1024;
+    public static final long DEFAULT_INTERVAL = 100;
+
+    // Uma única thread faz os flushes periódicos (TIME) de todos os sinks.
+    private static ScheduledExecutorService timer;
+
+    private final OutputStream out;
+    private final Charset charset;
+    private final FlushPolicy policy;
+    private final int size;
+    private final StringBuilder buffer;
+    private final ScheduledFuture<?> periodic;
+    private boolean error;
+
+    public StreamSink(OutputStream out, FlushPolicy policy) {
+        this(out, Charset.defaultCharset(), policy, DEFAULT_SIZE, DEFAULT_INTERVAL);
+    }
+
+    public StreamSink(OutputStream out, Charset charset, FlushPolicy policy) {
+        this(out, charset, policy, DEFAULT_SIZE, DEFAULT_INTERVAL);
+    }
+
+    // size em caracteres; interval em milissegundos (só para TIME).
+    public StreamSink(OutputStream out, Charset charset, FlushPolicy policy, int size, long interval) {
+        if (size < 1)
+            throw new IllegalArgumentException("size < 1");
+        if (policy == FlushPolicy.TIME && interval < 1)
+            throw new IllegalArgumentException("interval < 1");
+
+        this.out = out;
+        this.charset = charset;
+        this.policy = policy;
+        this.size = size;
+        this.buffer = new StringBuilder(Math.min(size, 1024));
+        this.periodic = policy == FlushPolicy.TIME ?
+            timer().scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS) :
+            null;
+    }
+
+    public FlushPolicy getPolicy() {
+        return policy;
+    }
+
+    @Override
+    public synchronized void println(String line) {
+        buffer.append(line).append(System.lineSeparator());
+        if (policy == FlushPolicy.LINE || buffer.length() >= size)
+            flush();
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (buffer.length() == 0)
+            return;
+
+        byte[] bytes = buffer.toString().getBytes(charset);
+        buffer.setLength(0);
+        if (error)
+            return;
+
+        try {
+            out.write(bytes);
+            out.flush();
+        } catch (IOException e) {
+            error = true;
+        }
+    }
+
+    public synchronized boolean checkError() {
+        return error;
+    }
+
+    @Override
+    public void close() {
+        if (periodic != null)
+            periodic.cancel(false);
+        flush();
+    }
+
+    private static synchronized ScheduledExecutorService timer() {
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "mjs-output-flush");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return timer;
+    }
+
+}
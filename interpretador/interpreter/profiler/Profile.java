@@ -0,0 +1,220 @@
+package interpreter.profiler;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// As amostras de um Profiler, contadas por pilha, e os relatórios:
+//
+//  - tempo próprio por linha (a linha executando no topo da pilha; numa
+//    função nativa, a linha que a chamou);
+//  - tempo próprio e total por função (em recursão, a função conta uma
+//    vez por amostra no total);
+//  - árvore de chamadas por função;
+//  - pilhas no formato "collapsed" ("a:3;b:7;c 12" por linha), que os
+//    geradores de flame graph aceitam.
+//
+// As linhas são sempre do script da base da pilha, que dá nome ao relatório.
+public class Profile {
+
+    // Quantas linhas os relatórios planos mostram; e abaixo de que fração
+    // do total (em milésimos) um ramo da árvore é omitido.
+    private static final int TOP = 20;
+    private static final int PRUNE = 5;
+
+    static final class Stack {
+
+        final String[] names;
+        final int[] lines;
+        private final int hash;
+
+        Stack(String[] names, int[] lines) {
+            this.names = names;
+            this.lines = lines;
+            this.hash = 31 * Arrays.hashCode(names) + Arrays.hashCode(lines);
+        }
+
+        String top() {
+            return names[names.length - 1];
+        }
+
+        // A linha executando: a do topo, ou a do primeiro nível abaixo
+        // dele que tenha uma (funções nativas não têm).
+        String line() {
+            for (int k = names.length - 1; k >= 0; k--) {
+                if (lines[k] > 0)
+                    return names[0] + ":" + lines[k];
+            }
+            return names[0];
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Stack))
+                return false;
+
+            Stack s = (Stack) o;
+            return hash == s.hash && Arrays.equals(names, s.names) && Arrays.equals(lines, s.lines);
+        }
+
+    }
+
+    private static final class Node {
+
+        final String name;
+        final Map<String, Node> children = new LinkedHashMap<String, Node>();
+        long total;
+        long self;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+    }
+
+    private final long interval;
+    private final Map<Stack, long[]> samples = new HashMap<Stack, long[]>();
+    private long count;
+
+    Profile(long interval) {
+        this.interval = interval;
+    }
+
+    void add(Stack stack) {
+        long[] n = samples.get(stack);
+        if (n == null)
+            samples.put(stack, new long[] { 1 });
+        else
+            n[0]++;
+        count++;
+    }
+
+    public long getSamples() {
+        return count;
+    }
+
+    // Intervalo entre amostras, em microssegundos.
+    public long getInterval() {
+        return interval;
+    }
+
+    public void report(PrintStream out) {
+        out.printf("Profile: %d samples, one every %d us (wall clock)%n", count, interval);
+        if (count == 0)
+            return;
+
+        Map<String, long[]> byLine = new HashMap<String, long[]>();
+        Map<String, long[]> byFunction = new HashMap<String, long[]>();
+        Node root = new Node(null);
+        for (Map.Entry<Stack, long[]> e : samples.entrySet()) {
+            Stack s = e.getKey();
+            long n = e.getValue()[0];
+
+            counter(byLine, s.line(), 1)[0] += n;
+
+            counter(byFunction, s.top(), 2)[0] += n;
+            Set<String> seen = new HashSet<String>();
+            for (String name : s.names) {
+                if (seen.add(name))
+                    counter(byFunction, name, 2)[1] += n;
+            }
+
+            Node node = root;
+            for (String name : s.names) {
+                Node child = node.children.get(name);
+                if (child == null) {
+                    child = new Node(name);
+                    node.children.put(name, child);
+                }
+                child.total += n;
+                node = child;
+            }
+            node.self += n;
+        }
+
+        out.println();
+        out.println("Self time by line");
+        out.printf("%10s %7s  %s%n", "samples", "%", "line");
+        for (Map.Entry<String, long[]> e : sorted(byLine, 0))
+            out.printf("%10d %6.1f%%  %s%n", e.getValue()[0], percent(e.getValue()[0]), e.getKey());
+
+        out.println();
+        out.println("Time by function");
+        out.printf("%10s %7s %10s %7s  %s%n", "self", "%", "total", "%", "function");
+        for (Map.Entry<String, long[]> e : sorted(byFunction, 0)) {
+            long[] n = e.getValue();
+            out.printf("%10d %6.1f%% %10d %6.1f%%  %s%n", n[0], percent(n[0]), n[1], percent(n[1]), e.getKey());
+        }
+
+        out.println();
+        out.println("Call tree (total, self)");
+        for (Node child : children(root))
+            tree(out, child, 0);
+    }
+
+    public void writeCollapsed(Writer out) throws IOException {
+        for (Map.Entry<Stack, long[]> e : samples.entrySet()) {
+            Stack s = e.getKey();
+            StringBuilder sb = new StringBuilder();
+            for (int k = 0; k < s.names.length; k++) {
+                if (k > 0)
+                    sb.append(';');
+                sb.append(s.names[k]);
+                if (s.lines[k] > 0)
+                    sb.append(':').append(s.lines[k]);
+            }
+            sb.append(' ').append(e.getValue()[0]).append('\n');
+            out.write(sb.toString());
+        }
+    }
+
+    private void tree(PrintStream out, Node node, int depth) {
+        if (node.total * 1000 < count * PRUNE)
+            return;
+
+        out.printf("%6.1f%% %6.1f%%  %s%s%n", percent(node.total), percent(node.self),
+            "  ".repeat(depth), node.name);
+        for (Node child : children(node))
+            tree(out, child, depth + 1);
+    }
+
+    private double percent(long n) {
+        return 100.0 * n / count;
+    }
+
+    private static long[] counter(Map<String, long[]> map, String key, int size) {
+        long[] n = map.get(key);
+        if (n == null) {
+            n = new long[size];
+            map.put(key, n);
+        }
+        return n;
+    }
+
+    // As TOP maiores entradas pela posição i.
+    private static List<Map.Entry<String, long[]>> sorted(Map<String, long[]> map, int i) {
+        List<Map.Entry<String, long[]>> entries = new ArrayList<Map.Entry<String, long[]>>(map.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue()[i], a.getValue()[i]));
+        return entries.subList(0, Math.min(TOP, entries.size()));
+    }
+
+    private static List<Node> children(Node node) {
+        List<Node> nodes = new ArrayList<Node>(node.children.values());
+        nodes.sort((a, b) -> Long.compare(b.total, a.total));
+        return nodes;
+    }
+
+}
@@ -0,0 +1,85 @@
+package interpreter.profiler;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+// O que está executando agora: a pilha de funções (a base é o script) e a
+// linha corrente da função do topo. É escrito só pela thread que executa
+// a árvore instrumentada e lido pela thread do Profiler.
+//
+// As escritas não usam volatile: a linha muda a cada comando e uma
+// barreira completa custaria mais que o próprio comando. Basta que a
+// amostra veja os valores em algum momento; uma amostra tirada no meio de
+// uma chamada pode sair com a linha da função anterior.
+final class ProfileState {
+
+    private static final VarHandle LINE;
+    private static final VarHandle DEPTH;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            LINE = lookup.findVarHandle(ProfileState.class, "line", int.class);
+            DEPTH = lookup.findVarHandle(ProfileState.class, "depth", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // names[k] é a função do nível k; lines[k], a linha em que o nível
+    // k - 1 estava quando chamou o nível k.
+    private String[] names = new String[64];
+    private int[] lines = new int[64];
+    private int line;
+    private int depth;
+
+    // Troca a linha corrente e devolve a anterior.
+    int line(int line) {
+        int saved = this.line;
+        LINE.setOpaque(this, line);
+        return saved;
+    }
+
+    // Uma função nova ainda não tem linha (as nativas nunca terão).
+    void push(String name) {
+        int d = depth;
+        if (d == names.length) {
+            names = Arrays.copyOf(names, d * 2);
+            lines = Arrays.copyOf(lines, d * 2);
+        }
+        names[d] = name;
+        lines[d] = line;
+        LINE.setOpaque(this, 0);
+        DEPTH.setRelease(this, d + 1);
+    }
+
+    void pop() {
+        int d = depth - 1;
+        LINE.setOpaque(this, lines[d]);
+        DEPTH.setRelease(this, d);
+    }
+
+    // Chamado pela thread do Profiler. Devolve null se nada estiver
+    // executando ou se a pilha mudou durante a cópia.
+    Profile.Stack sample() {
+        int d = (int) DEPTH.getAcquire(this);
+        String[] n = names;
+        int[] l = lines;
+        if (d == 0 || d > n.length || d > l.length)
+            return null;
+
+        String[] frames = Arrays.copyOf(n, d);
+        int[] at = new int[d];
+        for (int k = 0; k < d - 1; k++)
+            at[k] = l[k + 1];
+        at[d - 1] = (int) LINE.getOpaque(this);
+
+        for (String name : frames) {
+            if (name == null)
+                return null;
+        }
+        return new Profile.Stack(frames, at);
+    }
+
+}
@@ -0,0 +1,31 @@
+package interpreter.profiler;
+
+import interpreter.expr.FunctionCallExpr;
+import interpreter.function.Function;
+import interpreter.value.ListValue;
+import interpreter.value.Value;
+
+// Empilha a função chamada durante a chamada. O alvo e os argumentos são
+// avaliados antes, ainda no nível de quem chama.
+final class ProfiledCallExpr extends FunctionCallExpr {
+
+    private final ProfileState state;
+    private final String name;
+
+    ProfiledCallExpr(ProfileState state, String name, FunctionCallExpr call) {
+        super(call.getLine(), call.getExpr(), call.getArgs());
+        this.state = state;
+        this.name = name;
+    }
+
+    @Override
+    protected Value<?> invoke(Function f, ListValue args) {
+        state.push(name);
+        try {
+            return super.invoke(f, args);
+        } finally {
+            state.pop();
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package interpreter.profiler;
+
+import interpreter.command.Command;
+
+// Marca a linha do comando enquanto ele executa. Ao terminar, volta à
+// linha de quem o contém: o teste de um while, por exemplo, é contado na
+// linha do while e não na do último comando do corpo.
+final class ProfiledCommand extends Command {
+
+    private final ProfileState state;
+    private final Command cmd;
+
+    ProfiledCommand(ProfileState state, Command cmd) {
+        super(cmd.getLine());
+        this.state = state;
+        this.cmd = cmd;
+    }
+
+    @Override
+    public void execute() {
+        int saved = state.line(getLine());
+        try {
+            cmd.execute();
+        } finally {
+            state.line(saved);
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package interpreter.profiler;
+
+import interpreter.command.Command;
+
+// A base da pilha: o script inteiro, com o nome dado ao instrumentar.
+final class ProfiledScript extends Command {
+
+    private final ProfileState state;
+    private final String name;
+    private final Command cmd;
+
+    ProfiledScript(ProfileState state, String name, Command cmd) {
+        super(cmd.getLine());
+        this.state = state;
+        this.name = name;
+        this.cmd = cmd;
+    }
+
+    @Override
+    public void execute() {
+        state.push(name);
+        try {
+            cmd.execute();
+        } finally {
+            state.pop();
+        }
+    }
+
+}
@@ -0,0 +1,235 @@
+package interpreter.profiler;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DebugCommand;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.InitializeCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AcessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.ConditionalExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.ExprParent;
+import interpreter.expr.FunctionCallExpr;
+import interpreter.expr.FunctionExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.function.StandardFunction;
+import interpreter.value.FunctionValue;
+import interpreter.value.ListValue;
+import interpreter.value.ObjectValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Profiler por amostragem da árvore. instrument() altera a árvore para que
+// cada comando marque a sua linha e cada chamada empilhe a função chamada;
+// uma thread separada lê essa pilha a cada intervalo e conta as amostras
+// em um Profile.
+//
+// Só a árvore instrumentada paga pelo profiler: sem ele, nenhum nó do
+// interpretador faz trabalho a mais. As funções são alteradas no lugar
+// (são compartilhadas por todas as referências a elas), então uma árvore
+// instrumentada deve ser executada só enquanto o Profiler existir, e por
+// uma thread de cada vez.
+public class Profiler implements AutoCloseable {
+
+    public static final long DEFAULT_INTERVAL = 1000;
+
+    private final ProfileState state = new ProfileState();
+    private final Profile profile;
+    private final Map<StandardFunction, Boolean> visited =
+        new IdentityHashMap<StandardFunction, Boolean>();
+
+    private Thread sampler;
+    private volatile boolean running;
+
+    public Profiler() {
+        this(DEFAULT_INTERVAL);
+    }
+
+    // Intervalo entre amostras, em microssegundos.
+    public Profiler(long interval) {
+        if (interval < 1)
+            throw new IllegalArgumentException("interval < 1");
+
+        this.profile = new Profile(interval);
+    }
+
+    public synchronized void start() {
+        if (sampler != null)
+            throw new IllegalStateException("already started");
+
+        running = true;
+        sampler = new Thread(this::sample, "mjsi-profiler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    // Para a amostragem; o Profile pode ser lido depois disso.
+    @Override
+    public synchronized void close() {
+        if (sampler == null)
+            return;
+
+        running = false;
+        LockSupport.unpark(sampler);
+        boolean interrupted = false;
+        for (;;) {
+            try {
+                sampler.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    public Profile getProfile() {
+        return profile;
+    }
+
+    private void sample() {
+        long interval = TimeUnit.MICROSECONDS.toNanos(profile.getInterval());
+        while (running) {
+            LockSupport.parkNanos(interval);
+            Profile.Stack stack = state.sample();
+            if (stack != null && running)
+                profile.add(stack);
+        }
+    }
+
+    // O comando dado, instrumentado, com o nome que aparece na base da
+    // pilha (o arquivo do script, por exemplo).
+    public synchronized Command instrument(String name, Command cmd) {
+        return new ProfiledScript(state, name, command(cmd));
+    }
+
+    private Command command(Command cmd) {
+        if (cmd instanceof BlocksCommand) {
+            List<Command> cmds = ((BlocksCommand) cmd).getCmds();
+            for (int i = 0; i < cmds.size(); i++)
+                cmds.set(i, command(cmds.get(i)));
+            return cmd;
+        } else if (cmd instanceof AssignCommand) {
+            AssignCommand acmd = (AssignCommand) cmd;
+            child(acmd, acmd.getRhs());
+            if (acmd.getLhs() != null)
+                expr(acmd.getLhs());
+        } else if (cmd instanceof InitializeCommand) {
+            InitializeCommand icmd = (InitializeCommand) cmd;
+            child(icmd, icmd.getExpr());
+        } else if (cmd instanceof DebugCommand) {
+            DebugCommand dcmd = (DebugCommand) cmd;
+            child(dcmd, dcmd.getExpr());
+        } else if (cmd instanceof IfCommand) {
+            IfCommand ifcmd = (IfCommand) cmd;
+            Expr cond = child(ifcmd, ifcmd.getExpr());
+            Command elseCmds = ifcmd.getElseCmds() == null ? null : command(ifcmd.getElseCmds());
+            cmd = new IfCommand(cmd.getLine(), cond, command(ifcmd.getThenCmds()), elseCmds);
+        } else if (cmd instanceof WhileCommand) {
+            WhileCommand wcmd = (WhileCommand) cmd;
+            Expr cond = child(wcmd, wcmd.getExpr());
+            cmd = new WhileCommand(cmd.getLine(), cond, command(wcmd.getCmds()));
+        } else if (cmd instanceof ForCommand) {
+            ForCommand fcmd = (ForCommand) cmd;
+            Expr expr = child(fcmd, fcmd.getExpr());
+            cmd = new ForCommand(cmd.getLine(), fcmd.getVar(), expr, command(fcmd.getCmds()));
+        }
+        return new ProfiledCommand(state, cmd);
+    }
+
+    // Instrumenta a expressão filha e a substitui no pai, se mudou.
+    private Expr child(ExprParent parent, Expr e) {
+        Expr n = expr(e);
+        if (n != e) {
+            n.setParent(parent);
+            parent.replaceChild(e, n);
+        }
+        return n;
+    }
+
+    private Expr expr(Expr e) {
+        if (e instanceof BinaryExpr) {
+            BinaryExpr bexpr = (BinaryExpr) e;
+            child(bexpr, bexpr.getLeft());
+            child(bexpr, bexpr.getRight());
+        } else if (e instanceof UnaryExpr) {
+            UnaryExpr uexpr = (UnaryExpr) e;
+            child(uexpr, uexpr.getExpr());
+        } else if (e instanceof ConditionalExpr) {
+            ConditionalExpr cexpr = (ConditionalExpr) e;
+            child(cexpr, cexpr.getCond());
+            child(cexpr, cexpr.getTrueExpr());
+            child(cexpr, cexpr.getFalseExpr());
+        } else if (e instanceof AcessExpr) {
+            AcessExpr aexpr = (AcessExpr) e;
+            expr(aexpr.getBase());
+            child(aexpr, aexpr.getIndex());
+        } else if (e instanceof FunctionCallExpr && !(e instanceof ProfiledCallExpr)) {
+            FunctionCallExpr fexpr = (FunctionCallExpr) e;
+            child(fexpr, fexpr.getExpr());
+            for (Expr arg : new ArrayList<Expr>(fexpr.getArgs()))
+                child(fexpr, arg);
+            return new ProfiledCallExpr(state, name(fexpr.getExpr()), fexpr);
+        } else if (e instanceof ConstExpr) {
+            functions(((ConstExpr) e).getValue());
+        } else if (e instanceof FunctionExpr) {
+            function(((FunctionExpr) e).getFunction());
+        }
+        return e;
+    }
+
+    // O nome da função pelo que aparece antes dos parênteses: f, Math.sqrt,
+    // obj.f; nos demais casos, a linha da chamada.
+    private static String name(Expr e) {
+        if (e instanceof Variable)
+            return ((Variable) e).getName();
+
+        if (e instanceof AcessExpr) {
+            AcessExpr aexpr = (AcessExpr) e;
+            Expr index = aexpr.getIndex();
+            if (index instanceof ConstExpr && ((ConstExpr) index).getValue() instanceof TextValue) {
+                String base = aexpr.getBase() instanceof Variable ? name(aexpr.getBase()) : "?";
+                return base + "." + ((ConstExpr) index).getValue();
+            }
+        }
+        return "<anonymous:" + e.getLine() + ">";
+    }
+
+    // Instrumenta as funções criadas durante a análise (inclusive as
+    // guardadas em listas e objetos literais), uma vez cada.
+    private void functions(Value<?> v) {
+        if (v instanceof FunctionValue && v.value() instanceof StandardFunction) {
+            function((StandardFunction) v.value());
+        } else if (v instanceof ListValue) {
+            for (Value<?> item : ((ListValue) v).value())
+                functions(item);
+        } else if (v instanceof ObjectValue) {
+            for (Value<?> item : ((ObjectValue) v).value().values())
+                functions(item);
+        }
+    }
+
+    private void function(StandardFunction sf) {
+        if (visited.put(sf, Boolean.TRUE) != null)
+            return;
+
+        sf.setCmds(command(sf.getCmds()));
+        if (sf.getRet() != null)
+            child(sf, sf.getRet());
+    }
+
+}
@@ -0,0 +1,30 @@
+package interpreter.runner;
+
+// Resultado de um script executado por ScriptRunner: tudo o que ele
+// imprimiu e o estado de saída (0 em caso de sucesso, 1 se a análise ou a
+// execução falhou, 2 se a execução foi interrompida pelos limites ou por
+// cancelamento; nos dois últimos casos a mensagem é a última linha da
+// saída, como no mjsi).
+public class ScriptResult {
+
+    public static final int OK = 0;
+    public static final int ERROR = 1;
+    public static final int ABORTED = 2;
+
+    private final String output;
+    private final int status;
+
+    ScriptResult(String output, int status) {
+        this.output = output;
+        this.status = status;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+}
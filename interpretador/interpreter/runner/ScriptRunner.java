@@ -0,0 +1,176 @@
+package interpreter.runner;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Method;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import interpreter.Budget;
+import interpreter.ExecutionAbortedException;
+import interpreter.Interpreter;
+import interpreter.InterpreterContext;
+import interpreter.command.Command;
+import interpreter.output.FlushPolicy;
+import interpreter.output.StreamSink;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Executa vários scripts no mesmo processo. Cada script é analisado e
+// executado em um InterpreterContext próprio, com a sua própria saída, em
+// uma virtual thread quando a JVM as oferece (Java 21+) ou, senão, em um
+// conjunto fixo de threads de plataforma. No máximo maxConcurrency scripts
+// executam ao mesmo tempo; os demais esperam a sua vez.
+//
+// Os limites de passos e de tempo (Budget) valem para cada script, a partir
+// dos que forem enviados depois de definidos. Cancelar o CompletableFuture
+// de um script também interrompe a sua execução.
+public class ScriptRunner implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final boolean virtual;
+    private volatile long maxSteps = Budget.UNLIMITED;
+    private volatile long maxNanos = Budget.UNLIMITED;
+
+    public ScriptRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ScriptRunner(int maxConcurrency) {
+        if (maxConcurrency < 1)
+            throw new IllegalArgumentException("maxConcurrency < 1");
+
+        ExecutorService vt = virtualThreadExecutor();
+        this.virtual = vt != null;
+        this.executor = vt != null ? vt :
+            Executors.newFixedThreadPool(maxConcurrency, new PlatformThreads());
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtual;
+    }
+
+    public void setMaxSteps(long maxSteps) {
+        if (maxSteps < 0)
+            throw new IllegalArgumentException("maxSteps < 0");
+        this.maxSteps = maxSteps;
+    }
+
+    public void setMaxTime(long time, TimeUnit unit) {
+        if (time < 0)
+            throw new IllegalArgumentException("time < 0");
+        this.maxNanos = time == Budget.UNLIMITED ? Budget.UNLIMITED : unit.toNanos(time);
+    }
+
+    public CompletableFuture<ScriptResult> submit(String source) {
+        InterpreterContext context = new InterpreterContext();
+        context.getBudget().setMaxSteps(maxSteps);
+        context.getBudget().setMaxTime(maxNanos, TimeUnit.NANOSECONDS);
+
+        CompletableFuture<ScriptResult> future = CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+
+            try {
+                // Cancelado enquanto esperava a vez: não chega a executar.
+                if (context.getBudget().isCancelled())
+                    throw new CancellationException();
+                return run(context, source);
+            } finally {
+                permits.release();
+            }
+        }, executor);
+
+        future.whenComplete((r, e) -> {
+            if (future.isCancelled())
+                context.cancel();
+        });
+        return future;
+    }
+
+    private static ScriptResult run(InterpreterContext context, String source) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StreamSink out = new StreamSink(bytes, StandardCharsets.UTF_8, FlushPolicy.SIZE);
+        context.setOutput(out);
+
+        int status = ScriptResult.OK;
+        InterpreterContext saved = context.enter();
+        try (LexicalAnalysis l = new LexicalAnalysis(CharBuffer.wrap(source))) {
+            Command cmd = new SyntaticAnalysis(l, context).process();
+            Interpreter.interpret(cmd);
+        } catch (ExecutionAbortedException e) {
+            out.println(e.getMessage());
+            status = ScriptResult.ABORTED;
+        } catch (Exception e) {
+            out.println(e.getMessage());
+            status = ScriptResult.ERROR;
+        } catch (StackOverflowError e) {
+            // Recursão sem fim no script; a pilha já foi desfeita aqui.
+            out.println("Estouro da pilha de chamadas");
+            status = ScriptResult.ERROR;
+        } finally {
+            InterpreterContext.exit(saved);
+        }
+
+        out.close();
+        return new ScriptResult(bytes.toString(StandardCharsets.UTF_8), status);
+    }
+
+    // Espera os scripts já enviados terminarem. Uma interrupção não
+    // abandona a espera; só é repassada à thread no fim.
+    @Override
+    public void close() {
+        executor.shutdown();
+        boolean interrupted = false;
+        for (;;) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES))
+                    break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() só existe a partir do
+    // Java 21; em versões anteriores (ou com o recurso em preview desligado)
+    // devolve null.
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static class PlatformThreads implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "mjs-runner-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+
+    }
+
+}
@@ -3,25 +3,36 @@ package interpreter.value;
 
 public class BoolValue extends Value<Boolean> {
 
-    private Boolean value;
+    public static final BoolValue TRUE = new BoolValue(true);
+    public static final BoolValue FALSE = new BoolValue(false);
 
-    public BoolValue(Boolean value) {
+    private boolean value;
+
+    private BoolValue(boolean value) {
         this.value = value;
     }
 
+    public static BoolValue of(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
     @Override
     public Boolean value() {
         return this.value;
     }
 
+    public boolean booleanValue() {
+        return this.value;
+    }
+
     @Override
     public boolean eval() {
-        return this.value.booleanValue();
+        return this.value;
     }
 
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return Boolean.hashCode(this.value);
     }
 
     @Override
@@ -29,7 +40,7 @@ public class BoolValue extends Value<Boolean> {
         if (this == obj) {
             return true;
         } else if (obj instanceof BoolValue) {
-            return this.value.booleanValue() == ((BoolValue) obj).value.booleanValue();
+            return this.value == ((BoolValue) obj).value;
         } else {
             return false;
         }
@@ -37,21 +48,21 @@ public class BoolValue extends Value<Boolean> {
 
     @Override
     public String toString() {
-        return this.value.toString();
+        return Boolean.toString(this.value);
     }
 
     public static boolean convert(Value<?> v) {
         if (v instanceof BoolValue) {
-            return ((BoolValue) v).value();
+            return ((BoolValue) v).booleanValue();
         } else if (v instanceof NumberValue) {
-            return ((NumberValue) v).value() != 0.0;
+            return ((NumberValue) v).doubleValue() != 0.0;
         } else if (v instanceof TextValue) {
-            return !((TextValue) v).value().isEmpty();
+            return ((TextValue) v).length() > 0;
         } else if (v instanceof ListValue) {
-            return !((ListValue) v).value().isEmpty();
+            return ((ListValue) v).size() > 0;
         } else if (v instanceof ObjectValue) {
-            return !((ObjectValue) v).value().isEmpty();
-        } else if (v instanceof FunctionValue) {
+            return ((ObjectValue) v).size() > 0;
+        } else if (v instanceof FunctionValue || v instanceof IteratorValue) {
             return true;
         } else {
             return false;
@@ -0,0 +1,31 @@
+package interpreter.value;
+
+import java.util.Iterator;
+
+// Sequência percorrida uma única vez por "for (let x in ...)", produzida sob
+// demanda (ex.: as linhas de console.lines()).
+public class IteratorValue extends Value<Iterator<Value<?>>> {
+
+    private Iterator<Value<?>> value;
+
+    public IteratorValue(Iterator<Value<?>> value) {
+        this.value = value;
+    }
+
+    @Override
+    public Iterator<Value<?>> value() {
+        return this.value;
+    }
+
+    @Override
+    public boolean eval() {
+        return true;
+    }
+
+    // Mostrar os elementos consumiria a sequência.
+    @Override
+    public String toString() {
+        return "<iterator>";
+    }
+
+}
@@ -1,28 +1,154 @@
 package interpreter.value;
 
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
+// Enquanto todos os elementos são números, a lista guarda os valores em um
+// double[] (packed); ao receber qualquer outro valor passa a guardar
+// Value<?> (genérica) e não volta mais. Os argumentos das chamadas usam
+// direto a forma genérica, para não recriar os NumberValue a cada leitura.
 public class ListValue extends Value<List<Value<?>>> {
 
-    private List<Value<?>> value;
+    private static final double[] NO_NUMBERS = new double[0];
 
-    public ListValue(List<Value<?>> value) {
-        this.value = value;
+    private double[] numbers;
+    private Value<?>[] values;
+    private int size;
+
+    public ListValue() {
+        this.numbers = NO_NUMBERS;
+    }
+
+    public ListValue(List<Value<?>> items) {
+        this();
+        for (Value<?> v : items)
+            add(v);
+    }
+
+    // Usa o vetor sem copiá-lo.
+    public ListValue(Value<?>[] items) {
+        this.values = items;
+        this.size = items.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isPacked() {
+        return values == null;
+    }
+
+    public Value<?> get(int index) {
+        return values == null ? NumberValue.of(numbers[index]) : values[index];
+    }
+
+    public double getDouble(int index) {
+        return values == null ? numbers[index] : NumberValue.convert(values[index]);
+    }
+
+    // Acrescenta no final, no próprio vetor; ele dobra quando enche.
+    public void add(Value<?> value) {
+        if (values == null) {
+            if (value instanceof NumberValue) {
+                add(((NumberValue) value).doubleValue());
+                return;
+            }
+            generalize();
+        }
+
+        if (size == values.length)
+            values = Arrays.copyOf(values, Math.max(8, size * 2));
+        values[size++] = value;
     }
 
+    public void add(double value) {
+        if (values != null) {
+            add(NumberValue.of(value));
+            return;
+        }
+
+        if (size == numbers.length)
+            numbers = Arrays.copyOf(numbers, Math.max(8, size * 2));
+        numbers[size++] = value;
+    }
+
+    // Insere na posição index (0 <= index <= size), deslocando os demais.
+    public void insert(int index, Value<?> value) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+
+        if (values == null && !(value instanceof NumberValue))
+            generalize();
+
+        if (values == null) {
+            if (size == numbers.length)
+                numbers = Arrays.copyOf(numbers, Math.max(8, size * 2));
+            System.arraycopy(numbers, index, numbers, index + 1, size - index);
+            numbers[index] = ((NumberValue) value).doubleValue();
+        } else {
+            if (size == values.length)
+                values = Arrays.copyOf(values, Math.max(8, size * 2));
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+        }
+        size++;
+    }
+
+    private void generalize() {
+        values = new Value<?>[Math.max(8, numbers.length)];
+        for (int i = 0; i < size; i++)
+            values[i] = NumberValue.of(numbers[i]);
+        numbers = null;
+    }
+
+    public Iterator<Value<?>> iterator() {
+        return new Iterator<Value<?>>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Value<?> next() {
+                if (next >= size)
+                    throw new NoSuchElementException();
+                return get(next++);
+            }
+        };
+    }
+
+    // Visão somente leitura dos elementos.
     @Override
     public List<Value<?>> value() {
-        return this.value;
+        return new AbstractList<Value<?>>() {
+            @Override
+            public Value<?> get(int index) {
+                if (index < 0 || index >= size)
+                    throw new IndexOutOfBoundsException(Integer.toString(index));
+                return ListValue.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
     }
 
     @Override
     public boolean eval() {
-        return !value.isEmpty();
+        return size > 0;
     }
 
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return this.value().hashCode();
     }
 
     @Override
@@ -30,7 +156,7 @@ public class ListValue extends Value<List<Value<?>>> {
         if (this == obj) {
             return true;
         } else if (obj instanceof ListValue) {
-            return this.value.equals(((ListValue) obj).value);
+            return this.value().equals(((ListValue) obj).value());
         } else {
             return false;
         }
@@ -41,7 +167,8 @@ public class ListValue extends Value<List<Value<?>>> {
         StringBuffer sb = new StringBuffer();
         sb.append("[");
 
-        for (Value<?> v : this.value) {
+        for (int i = 0; i < size; i++) {
+            Value<?> v = get(i);
             sb.append(v == null ? "null" : v.toString());
             sb.append(", ");
         }
@@ -2,25 +2,57 @@ package interpreter.value;
 
 public class NumberValue extends Value<Double> {
 
-    private Double value;
+    // Inteiros em [-128, HIGH] são compartilhados, como em Integer.valueOf.
+    // O limite superior pode ser ajustado com -Dmjs.numberCache.high=N;
+    // um valor negativo desliga o cache.
+    private static final long NEGATIVE_ZERO = Double.doubleToRawLongBits(-0.0);
+    private static final int LOW;
+    private static final int HIGH;
+    private static final NumberValue[] cache;
 
-    public NumberValue(Double value) {
+    static {
+        int high = Integer.getInteger("mjs.numberCache.high", 1024);
+        LOW = high >= 0 ? -128 : 0;
+        HIGH = high >= 0 ? high : -1;
+
+        cache = new NumberValue[HIGH - LOW + 1];
+        for (int i = 0; i < cache.length; i++)
+            cache[i] = new NumberValue(LOW + i);
+    }
+
+    private double value;
+
+    private NumberValue(double value) {
         this.value = value;
     }
 
+    public static NumberValue of(double value) {
+        int i = (int) value;
+        if (i == value && i >= LOW && i <= HIGH &&
+                Double.doubleToRawLongBits(value) != NEGATIVE_ZERO)
+            return cache[i - LOW];
+
+        return new NumberValue(value);
+    }
+
     @Override
     public Double value() {
         return this.value;
     }
 
+    // Acesso ao valor sem criar um Double.
+    public double doubleValue() {
+        return this.value;
+    }
+
     @Override
     public boolean eval() {
-        return !this.value.isNaN() && this.value != 0.0;
+        return !Double.isNaN(this.value) && this.value != 0.0;
     }
 
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return Double.hashCode(this.value);
     }
 
     @Override
@@ -28,7 +60,7 @@ public class NumberValue extends Value<Double> {
         if (this == obj) {
             return true;
         } else if (obj instanceof NumberValue) {
-            return this.value.doubleValue() == ((NumberValue) obj).value.doubleValue();
+            return this.value == ((NumberValue) obj).value;
         } else {
             return false;
         }
@@ -36,16 +68,16 @@ public class NumberValue extends Value<Double> {
 
     @Override
     public String toString() {
-        long tmp = this.value.longValue();
-        return this.value.doubleValue() == ((double) tmp) ?
-            Long.toString(tmp) : this.value.toString();
+        long tmp = (long) this.value;
+        return this.value == ((double) tmp) ?
+            Long.toString(tmp) : Double.toString(this.value);
     }
 
     public static double convert(Value<?> v) {
         if (v instanceof BoolValue) {
-            return ((BoolValue) v).value() ? 1.0 : 0.0;
+            return ((BoolValue) v).booleanValue() ? 1.0 : 0.0;
         } else if (v instanceof NumberValue) {
-            return ((NumberValue) v).value();
+            return ((NumberValue) v).doubleValue();
         } else if (v instanceof TextValue) {
             try {
                 return Double.parseDouble(((TextValue) v).value());
@@ -1,28 +1,131 @@
 package interpreter.value;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+// Os valores das propriedades ficam em um vetor, na posição indicada pela
+// Shape do objeto. Com propriedades demais o objeto passa para o modo
+// dicionário (shape == null) e usa um mapa. Em ambos os casos as
+// propriedades são percorridas na ordem em que foram criadas.
 public class ObjectValue extends Value<Map<TextValue, Value<?>>> {
 
-    private Map<TextValue, Value<?>> value;
+    private static final Value<?>[] NO_SLOTS = new Value<?>[0];
 
-    public ObjectValue(Map<TextValue, Value<?>> value) {
-        this.value = value;
+    private Shape shape;
+    private Value<?>[] slots;
+    private Map<String, Value<?>> dictionary;
+    private boolean frozen;
+
+    public ObjectValue() {
+        this.shape = Shape.EMPTY;
+        this.slots = NO_SLOTS;
+    }
+
+    // Null em modo dicionário.
+    public Shape getShape() {
+        return shape;
+    }
+
+    public Value<?> getSlot(int index) {
+        return slots[index];
+    }
+
+    public void setSlot(int index, Value<?> value) {
+        slots[index] = value;
+    }
+
+    public int size() {
+        return shape != null ? shape.size() : dictionary.size();
+    }
+
+    public Value<?> get(String key) {
+        if (shape == null)
+            return dictionary.get(key);
+
+        int i = shape.indexOf(key);
+        return i < 0 ? null : slots[i];
+    }
+
+    public void put(String key, Value<?> value) {
+        if (frozen)
+            throw new UnsupportedOperationException();
+
+        if (shape == null) {
+            dictionary.put(key, value);
+            return;
+        }
+
+        int i = shape.indexOf(key);
+        if (i >= 0) {
+            slots[i] = value;
+            return;
+        }
+
+        Shape next = shape.add(key);
+        if (next == null) {
+            toDictionary();
+            dictionary.put(key, value);
+            return;
+        }
+
+        i = shape.size();
+        if (i == slots.length)
+            slots = Arrays.copyOf(slots, Math.max(4, i * 2));
+        slots[i] = value;
+        shape = next;
     }
 
+    // Objetos congelados (os embutidos) rejeitam put.
+    public void freeze() {
+        this.frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    public Iterator<Value<?>> values() {
+        if (shape == null)
+            return dictionary.values().iterator();
+
+        return Arrays.asList(slots).subList(0, shape.size()).iterator();
+    }
+
+    private void toDictionary() {
+        dictionary = new LinkedHashMap<String, Value<?>>();
+        for (int i = 0; i < shape.size(); i++)
+            dictionary.put(shape.key(i), slots[i]);
+
+        shape = null;
+        slots = NO_SLOTS;
+    }
+
+    // Cópia das propriedades, na ordem de criação.
     @Override
     public Map<TextValue, Value<?>> value() {
-        return this.value;
+        Map<TextValue, Value<?>> map = new LinkedHashMap<TextValue, Value<?>>();
+        if (shape == null) {
+            for (Map.Entry<String, Value<?>> e : dictionary.entrySet())
+                map.put(new TextValue(e.getKey()), e.getValue());
+        } else {
+            for (int i = 0; i < shape.size(); i++)
+                map.put(new TextValue(shape.key(i)), slots[i]);
+        }
+
+        return Collections.unmodifiableMap(map);
     }
 
     @Override
     public boolean eval() {
-        return !value.isEmpty();
+        return size() > 0;
     }
 
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return this.value().hashCode();
     }
 
     @Override
@@ -30,7 +133,7 @@ public class ObjectValue extends Value<Map<TextValue, Value<?>>> {
         if (this == obj) {
             return true;
         } else if (obj instanceof ObjectValue) {
-            return this.value.equals(((ObjectValue) obj).value);
+            return this.value().equals(((ObjectValue) obj).value());
         } else {
             return false;
         }
@@ -41,7 +144,7 @@ public class ObjectValue extends Value<Map<TextValue, Value<?>>> {
         StringBuffer sb = new StringBuffer();
         sb.append("{");
 
-        for (Map.Entry<TextValue, Value<?>> e : this.value.entrySet()) {
+        for (Map.Entry<TextValue, Value<?>> e : this.value().entrySet()) {
             TextValue k = e.getKey();
             Value<?> v = e.getValue();
 
@@ -0,0 +1,101 @@
+package interpreter.value;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Disposição das propriedades de um objeto (hidden class): a lista das
+// chaves, na ordem em que foram criadas, e o índice de cada uma no vetor de
+// valores do objeto. Objetos que recebem as mesmas chaves na mesma ordem
+// compartilham a mesma Shape, o que permite guardar o índice de uma
+// propriedade em cache (AcessExpr) e reaproveitá-lo enquanto a Shape não
+// mudar.
+//
+// As Shapes são imutáveis e formam uma árvore a partir de EMPTY; as
+// transições (acréscimo de uma chave) são compartilhadas entre threads e
+// por todos os contextos, e nunca são liberadas.
+public final class Shape {
+
+    public static final Shape EMPTY = new Shape(new String[0]);
+
+    // Acima destes limites o objeto passa a usar um mapa (modo dicionário),
+    // para que chaves dinâmicas não criem Shapes sem fim. MAX_PROPERTIES e
+    // MAX_TRANSITIONS só limitam a profundidade e a largura da árvore;
+    // MAX_SHAPES limita o total, de todos os scripts do processo.
+    static final int MAX_PROPERTIES = 64;
+    private static final int MAX_TRANSITIONS = 64;
+    private static final int MAX_SHAPES = 16384;
+
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    // Até este tamanho a busca linear nas chaves é mais rápida que o mapa.
+    private static final int LINEAR = 8;
+
+    private final String[] keys;
+    private final Map<String, Integer> indexes;
+    private final ConcurrentHashMap<String, Shape> transitions;
+
+    private Shape(String[] keys) {
+        this.keys = keys;
+        this.transitions = new ConcurrentHashMap<String, Shape>();
+
+        if (keys.length > LINEAR) {
+            indexes = new HashMap<String, Integer>(keys.length * 2);
+            for (int i = 0; i < keys.length; i++)
+                indexes.put(keys[i], i);
+        } else {
+            indexes = null;
+        }
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public String key(int index) {
+        return keys[index];
+    }
+
+    // Índice da chave no vetor de valores, ou -1 se não existe.
+    public int indexOf(String key) {
+        if (indexes != null) {
+            Integer i = indexes.get(key);
+            return i == null ? -1 : i;
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key))
+                return i;
+        }
+        return -1;
+    }
+
+    // Shape com a chave acrescentada ao final, ou null se esta Shape já tem
+    // transições demais ou se o total de Shapes se esgotou.
+    Shape add(String key) {
+        Shape next = transitions.get(key);
+        if (next != null)
+            return next;
+
+        if (keys.length >= MAX_PROPERTIES || transitions.size() >= MAX_TRANSITIONS)
+            return null;
+
+        if (COUNT.incrementAndGet() > MAX_SHAPES) {
+            COUNT.decrementAndGet();
+            return null;
+        }
+
+        String[] k = Arrays.copyOf(keys, keys.length + 1);
+        k[keys.length] = key;
+        next = transitions.putIfAbsent(key, new Shape(k));
+        if (next != null) {
+            // Outra thread criou a mesma transição antes.
+            COUNT.decrementAndGet();
+            return next;
+        }
+        return transitions.get(key);
+    }
+
+}
@@ -1,26 +1,87 @@
 package interpreter.value;
 
+import java.util.ArrayDeque;
+
+// O resultado de uma concatenação (concat) é guardado como um nó com as duas
+// partes (rope), sem copiar os caracteres; o texto só é montado (flatten)
+// quando alguém precisa dele: comparação, hash, impressão, conversão. Assim
+// "s = s + linha" em um laço não copia o texto acumulado a cada volta.
+//
+// Os nós são criados durante a execução e ficam na thread do contexto que os
+// criou; flatten não é sincronizado.
 public class TextValue extends Value<String> {
 
+    // Abaixo deste tamanho copiar é mais barato que criar um nó.
+    private static final int SHORT = 64;
+
     private String value;
+    private TextValue left;
+    private TextValue right;
+    private final int length;
 
     public TextValue(String value) {
         this.value = value;
+        this.length = value.length();
+    }
+
+    private TextValue(TextValue left, TextValue right) {
+        this.left = left;
+        this.right = right;
+        this.length = left.length + right.length;
+    }
+
+    public static TextValue concat(TextValue t1, TextValue t2) {
+        if (t1.length == 0)
+            return t2;
+        if (t2.length == 0)
+            return t1;
+
+        if (t1.length + t2.length <= SHORT && t1.value != null && t2.value != null)
+            return new TextValue(t1.value + t2.value);
+
+        return new TextValue(t1, t2);
+    }
+
+    public int length() {
+        return length;
     }
 
     @Override
     public String value() {
+        if (value == null)
+            flatten();
         return this.value;
     }
 
+    // Percorre as partes sem recursão: um texto montado com s = s + x tem
+    // uma parte para cada volta do laço.
+    private void flatten() {
+        StringBuilder sb = new StringBuilder(length);
+        ArrayDeque<TextValue> parts = new ArrayDeque<TextValue>();
+        parts.push(this);
+        while (!parts.isEmpty()) {
+            TextValue t = parts.pop();
+            if (t.value != null) {
+                sb.append(t.value);
+            } else {
+                parts.push(t.right);
+                parts.push(t.left);
+            }
+        }
+
+        value = sb.toString();
+        left = null;
+        right = null;
+    }
+
     @Override
     public boolean eval() {
-        return value != null && !value.isEmpty();
+        return length > 0;
     }
 
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return this.value().hashCode();
     }
 
     @Override
@@ -28,7 +89,8 @@ public class TextValue extends Value<String> {
         if (this == obj) {
             return true;
         } else if (obj instanceof TextValue) {
-            return this.value.equals(((TextValue) obj).value);
+            TextValue t = (TextValue) obj;
+            return this.length == t.length && this.value().equals(t.value());
         } else {
             return false;
         }
@@ -36,7 +98,7 @@ public class TextValue extends Value<String> {
 
     @Override
     public String toString() {
-        return this.value.toString();
+        return this.value();
     }
 
     public static String convert(Value<?> v) {
@@ -1,8 +1,12 @@
 package interpreter.value;
 
+import interpreter.jfr.Statistics;
+
 public abstract class Value<T> {
 
 	protected Value() {
+		if (Statistics.isCounting())
+			Statistics.allocated(this);
 	}
 
 	public abstract T value();
@@ -0,0 +1,22 @@
+package interpreter.vm;
+
+// Bytecode compilado de um programa ou do corpo de uma função.
+public class Chunk {
+
+    final int[] code;
+    final Object[] constants;
+    final int maxStack;
+    final int maxLoops;
+
+    Chunk(int[] code, Object[] constants, int maxStack, int maxLoops) {
+        this.code = code;
+        this.constants = constants;
+        this.maxStack = maxStack;
+        this.maxLoops = maxLoops;
+    }
+
+    public int size() {
+        return code.length;
+    }
+
+}
@@ -0,0 +1,331 @@
+package interpreter.vm;
+
+import static interpreter.vm.Opcode.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DebugCommand;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.InitializeCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AcessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.ConditionalExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.FunctionCallExpr;
+import interpreter.expr.FunctionExpr;
+import interpreter.expr.SetExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.function.StandardFunction;
+
+// Traduz as árvores de Command/Expr para o bytecode da máquina de pilha,
+// preservando a ordem de avaliação do interpretador de árvore.
+public class Compiler {
+
+    private int[] code;
+    private int size;
+    private final List<Object> constants;
+    private final Map<Object, Integer> indexes;
+    private int depth;
+    private int maxStack;
+    private int loops;
+    private int maxLoops;
+
+    private Compiler() {
+        this.code = new int[64];
+        this.size = 0;
+        this.constants = new ArrayList<Object>();
+        this.indexes = new IdentityHashMap<Object, Integer>();
+    }
+
+    public static Chunk compile(Command cmd) {
+        Compiler c = new Compiler();
+        c.command(cmd);
+        c.emitConstant(null);
+        c.emit(RETURN, -1);
+
+        return c.chunk();
+    }
+
+    public static Chunk compile(StandardFunction f) {
+        Compiler c = new Compiler();
+        c.command(f.getCmds());
+        if (f.getRet() != null)
+            c.expr(f.getRet());
+        else
+            c.emitConstant(null);
+        c.emit(RETURN, -1);
+
+        return c.chunk();
+    }
+
+    private Chunk chunk() {
+        return new Chunk(Arrays.copyOf(code, size), constants.toArray(),
+            maxStack, maxLoops);
+    }
+
+    private void command(Command cmd) {
+        if (cmd instanceof BlocksCommand) {
+            for (Command c : ((BlocksCommand) cmd).getCmds())
+                command(c);
+
+        } else if (cmd instanceof AssignCommand) {
+            AssignCommand acmd = (AssignCommand) cmd;
+            expr(acmd.getRhs());
+            if (acmd.getLhs() != null)
+                store(acmd.getLhs());
+            else
+                emit(POP, -1);
+
+        } else if (cmd instanceof InitializeCommand) {
+            InitializeCommand icmd = (InitializeCommand) cmd;
+            expr(icmd.getExpr());
+            emit(INIT, constant(icmd.getVar()), -1);
+
+        } else if (cmd instanceof DebugCommand) {
+            expr(((DebugCommand) cmd).getExpr());
+            emit(DEBUG, -1);
+
+        } else if (cmd instanceof IfCommand) {
+            IfCommand ifcmd = (IfCommand) cmd;
+            expr(ifcmd.getExpr());
+            int otherwise = emitJump(JUMP_FALSE, -1);
+            command(ifcmd.getThenCmds());
+            if (ifcmd.getElseCmds() != null) {
+                int end = emitJump(JUMP, 0);
+                patch(otherwise);
+                command(ifcmd.getElseCmds());
+                patch(end);
+            } else {
+                patch(otherwise);
+            }
+
+        } else if (cmd instanceof WhileCommand) {
+            WhileCommand wcmd = (WhileCommand) cmd;
+            int loop = size;
+            expr(wcmd.getExpr());
+            int exit = emitJump(JUMP_FALSE, -1);
+            command(wcmd.getCmds());
+            emit(JUMP, loop, 0);
+            patch(exit);
+
+        } else if (cmd instanceof ForCommand) {
+            ForCommand fcmd = (ForCommand) cmd;
+            expr(fcmd.getExpr());
+            emit(FOR_START, cmd.getLine(), -1);
+            loops++;
+            maxLoops = Math.max(maxLoops, loops);
+
+            int loop = size;
+            emit(FOR_NEXT, constant(fcmd.getVar()), 0, 0);
+            int exit = size - 1;
+            command(fcmd.getCmds());
+            emit(JUMP, loop, 0);
+            code[exit] = size;
+            loops--;
+
+        } else {
+            throw new IllegalStateException("Unsupported command: " +
+                cmd.getClass().getSimpleName());
+        }
+    }
+
+    private void expr(Expr expr) {
+        if (expr instanceof ConstExpr) {
+            emitConstant(((ConstExpr) expr).getValue());
+
+        } else if (expr instanceof FunctionExpr) {
+            emit(CLOSURE, constant(expr), 1);
+
+        } else if (expr instanceof Variable) {
+            emit(LOAD, constant(expr), 1);
+
+        } else if (expr instanceof AcessExpr) {
+            AcessExpr aexpr = (AcessExpr) expr;
+            expr(aexpr.getBase());
+            if (!pure(aexpr.getIndex()))
+                emit(CHECK_INDEXABLE, expr.getLine(), 0);
+            expr(aexpr.getIndex());
+            emit(GET, expr.getLine(), -1);
+
+        } else if (expr instanceof BinaryExpr) {
+            BinaryExpr bexpr = (BinaryExpr) expr;
+            expr(bexpr.getLeft());
+            expr(bexpr.getRight());
+            emit(binary(bexpr.getOp()), -1);
+
+        } else if (expr instanceof UnaryExpr) {
+            unary((UnaryExpr) expr);
+
+        } else if (expr instanceof ConditionalExpr) {
+            ConditionalExpr cexpr = (ConditionalExpr) expr;
+            expr(cexpr.getCond());
+            expr(cexpr.getTrueExpr());
+            expr(cexpr.getFalseExpr());
+            emit(SELECT, -2);
+
+        } else if (expr instanceof FunctionCallExpr) {
+            FunctionCallExpr fexpr = (FunctionCallExpr) expr;
+            expr(fexpr.getExpr());
+
+            boolean pure = true;
+            for (Expr a : fexpr.getArgs())
+                pure &= pure(a);
+            if (!pure)
+                emit(CHECK_CALLABLE, expr.getLine(), 0);
+
+            for (Expr a : fexpr.getArgs())
+                expr(a);
+            int argc = fexpr.getArgs().size();
+            emit(CALL, argc, expr.getLine(), -argc);
+
+        } else {
+            throw new IllegalStateException("Unsupported expression: " +
+                expr.getClass().getSimpleName());
+        }
+    }
+
+    private void unary(UnaryExpr uexpr) {
+        expr(uexpr.getExpr());
+        switch (uexpr.getOp()) {
+            case Not:
+                emit(NOT, 0);
+                return;
+            case Pos:
+                emit(POS, 0);
+                return;
+            case Neg:
+                emit(NEG, 0);
+                return;
+            default:
+                break;
+        }
+
+        if (!(uexpr.getExpr() instanceof SetExpr)) {
+            emit(THROW, uexpr.getLine(), 0);
+            return;
+        }
+
+        UnaryExpr.Op op = uexpr.getOp();
+        int delta = (op == UnaryExpr.Op.PreInc || op == UnaryExpr.Op.PosInc) ? 1 : -1;
+        int post = (op == UnaryExpr.Op.PosInc || op == UnaryExpr.Op.PosDec) ? 1 : 0;
+        emit(INC_DEC, delta, post, 1);
+        store((SetExpr) uexpr.getExpr());
+    }
+
+    // Grava o valor do topo da pilha no destino, reavaliando base e índice
+    // como SetExpr.setValue faz.
+    private void store(SetExpr target) {
+        if (target instanceof Variable) {
+            emit(STORE, constant(target), -1);
+        } else {
+            AcessExpr aexpr = (AcessExpr) target;
+            expr(aexpr.getBase());
+            if (!pure(aexpr.getIndex()))
+                emit(CHECK_INDEXABLE, target.getLine(), 0);
+            expr(aexpr.getIndex());
+            emit(SET, target.getLine(), -3);
+        }
+    }
+
+    private static int binary(BinaryExpr.Op op) {
+        switch (op) {
+            case And:
+                return AND;
+            case Or:
+                return OR;
+            case Equal:
+                return EQUAL;
+            case NotEqual:
+                return NOT_EQUAL;
+            case LowerThan:
+                return LOWER_THAN;
+            case LowerEqual:
+                return LOWER_EQUAL;
+            case GreaterThan:
+                return GREATER_THAN;
+            case GreaterEqual:
+                return GREATER_EQUAL;
+            case Add:
+                return ADD;
+            case Sub:
+                return SUB;
+            case Mul:
+                return MUL;
+            case Div:
+            default:
+                return DIV;
+        }
+    }
+
+    // Expressões sem efeitos colaterais podem ser avaliadas antes das
+    // verificações de tipo sem alterar o comportamento do programa.
+    private static boolean pure(Expr expr) {
+        return expr instanceof ConstExpr || expr instanceof Variable;
+    }
+
+    private int constant(Object value) {
+        Integer index = indexes.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            indexes.put(value, index);
+        }
+
+        return index;
+    }
+
+    private void emitConstant(Object value) {
+        emit(CONST, constant(value), 1);
+    }
+
+    private int emitJump(int op, int effect) {
+        emit(op, -1, effect);
+        return size - 1;
+    }
+
+    private void patch(int at) {
+        code[at] = size;
+    }
+
+    private void emit(int op, int effect) {
+        put(op);
+        adjust(effect);
+    }
+
+    private void emit(int op, int a, int effect) {
+        put(op);
+        put(a);
+        adjust(effect);
+    }
+
+    private void emit(int op, int a, int b, int effect) {
+        put(op);
+        put(a);
+        put(b);
+        adjust(effect);
+    }
+
+    private void put(int word) {
+        if (size == code.length)
+            code = Arrays.copyOf(code, size * 2);
+
+        code[size++] = word;
+    }
+
+    private void adjust(int effect) {
+        depth += effect;
+        maxStack = Math.max(maxStack, depth);
+    }
+
+}
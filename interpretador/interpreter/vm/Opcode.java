@@ -0,0 +1,47 @@
+package interpreter.vm;
+
+// Instruções da máquina de pilha. Os operandos seguem o código da
+// instrução no vetor de bytecode; o comentário indica operandos e o
+// efeito na pilha.
+public final class Opcode {
+
+    public static final int CONST = 0;            // k          -> v
+    public static final int LOAD = 1;             // var        -> v
+    public static final int STORE = 2;            // var      v ->
+    public static final int INIT = 3;             // var      v ->
+    public static final int POP = 4;              //          v ->
+    public static final int AND = 5;              //        a b -> r
+    public static final int OR = 6;
+    public static final int EQUAL = 7;
+    public static final int NOT_EQUAL = 8;
+    public static final int LOWER_THAN = 9;
+    public static final int LOWER_EQUAL = 10;
+    public static final int GREATER_THAN = 11;
+    public static final int GREATER_EQUAL = 12;
+    public static final int ADD = 13;
+    public static final int SUB = 14;
+    public static final int MUL = 15;
+    public static final int DIV = 16;
+    public static final int NOT = 17;             //          v -> r
+    public static final int POS = 18;
+    public static final int NEG = 19;
+    public static final int INC_DEC = 20;         // delta post v -> r n
+    public static final int SELECT = 21;          //      c t f -> r
+    public static final int JUMP = 22;            // addr
+    public static final int JUMP_FALSE = 23;      // addr     c ->
+    public static final int CHECK_INDEXABLE = 24; // line     v -> v
+    public static final int GET = 25;             // line   b i -> v
+    public static final int SET = 26;             // line v b i ->
+    public static final int CHECK_CALLABLE = 27;  // line     f -> f
+    public static final int CALL = 28;            // argc line  f a1..an -> r
+    public static final int DEBUG = 29;           //          v ->
+    public static final int FOR_START = 30;       // line     v ->
+    public static final int FOR_NEXT = 31;        // var addr
+    public static final int THROW = 32;           // line
+    public static final int RETURN = 33;          //          v ->
+    public static final int CLOSURE = 34;         // fexpr      -> f
+
+    private Opcode() {
+    }
+
+}
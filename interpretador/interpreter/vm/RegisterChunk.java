@@ -0,0 +1,48 @@
+package interpreter.vm;
+
+import interpreter.function.Function;
+import interpreter.value.Value;
+
+// Código compilado para a máquina de registradores.
+public class RegisterChunk {
+
+    final int[] code;
+    final Object[] constants;
+    final int maxNumbers;
+    final int maxLoops;
+
+    // Registro de ativação inicial: só os registradores das constantes,
+    // a partir de preloadBase, estão preenchidos.
+    final Value<?>[] frame;
+    final int preloadBase;
+    final int preloadSize;
+
+    // Os argumentos vão para os registradores a partir de argBase, até
+    // arguments deles; com arguments < 0, vão numa ListValue em params.
+    final int argBase;
+    final int arguments;
+
+    // Cache de cada instrução CALL: a última função chamada e o seu código.
+    final Function[] callees;
+    final RegisterChunk[] targets;
+
+    RegisterChunk(int[] code, Object[] constants, Value<?>[] frame, int preloadBase,
+            int preloadSize, int argBase, int arguments, int maxNumbers, int maxLoops, int calls) {
+        this.code = code;
+        this.constants = constants;
+        this.frame = frame;
+        this.preloadBase = preloadBase;
+        this.preloadSize = preloadSize;
+        this.argBase = argBase;
+        this.arguments = arguments;
+        this.maxNumbers = maxNumbers;
+        this.maxLoops = maxLoops;
+        this.callees = new Function[calls];
+        this.targets = new RegisterChunk[calls];
+    }
+
+    public int size() {
+        return code.length;
+    }
+
+}
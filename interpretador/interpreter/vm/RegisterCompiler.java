@@ -0,0 +1,701 @@
+package interpreter.vm;
+
+import static interpreter.vm.RegisterOpcode.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import interpreter.FrameLayout;
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DebugCommand;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.InitializeCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AcessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.ConditionalExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.FunctionCallExpr;
+import interpreter.expr.FunctionExpr;
+import interpreter.expr.SetExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.function.StandardFunction;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Traduz as árvores de Command/Expr para o código da máquina de
+// registradores. Variáveis do próprio registro de ativação são usadas
+// diretamente como registradores; as de funções externas são acessadas
+// pelo registro ativo da FrameLayout correspondente.
+//
+// As constantes usadas como operandos também ganham registradores, logo
+// depois das variáveis, já preenchidos no registro de ativação inicial da
+// função (no programa principal, copiados na entrada); os temporários vêm
+// depois deles. Como o número dessas constantes só é
+// conhecido no fim, a compilação é feita em duas passadas.
+//
+// Os resultados intermediários das operações aritméticas não viram
+// NumberValue: ficam em temporários numéricos (double), indicados nos
+// operandos por ~n. Em s + i * 2 - 1, por exemplo, só o resultado final é
+// criado.
+//
+// Numa função que só lê params[k], com k constante, os argumentos são
+// copiados pela CALL direto para registradores da função, logo depois dos
+// das constantes, e a ListValue de params não é criada. A primeira passada
+// descobre se é o caso (escaped) e quantos registradores são necessários.
+public class RegisterCompiler {
+
+    private static final int MAX_ARGUMENTS = 16;
+
+    private final FrameLayout layout;
+    private final int base;
+    private final Variable params;
+    private final int arguments;
+    private final int argBase;
+    private boolean escaped;
+    private int maxArgument = -1;
+    private final List<Value<?>> preload;
+    private final Map<Value<?>, Integer> registers;
+    private int temp;
+    private int maxTemp;
+    private int number;
+    private int maxNumber;
+    private int[] code;
+    private int size;
+    private final List<Object> constants;
+    private final Map<Object, Integer> indexes;
+    private int loops;
+    private int maxLoops;
+    private int calls;
+
+    // Com arguments < 0, params é passado como ListValue.
+    private RegisterCompiler(FrameLayout layout, Variable params, int preloaded, int arguments) {
+        this.layout = layout;
+        this.base = layout.size();
+        this.params = params;
+        this.arguments = arguments;
+        this.argBase = base + preloaded;
+        this.preload = new ArrayList<Value<?>>();
+        this.registers = new IdentityHashMap<Value<?>, Integer>();
+        this.temp = argBase + Math.max(arguments, 0);
+        this.maxTemp = temp;
+        this.code = new int[64];
+        this.size = 0;
+        this.constants = new ArrayList<Object>();
+        this.indexes = new IdentityHashMap<Object, Integer>();
+    }
+
+    public static RegisterChunk compile(Command cmd, FrameLayout layout) {
+        RegisterCompiler c = new RegisterCompiler(layout, null, 0, -1);
+        c.program(cmd);
+        c = new RegisterCompiler(layout, null, c.preload.size(), -1);
+        c.program(cmd);
+
+        return c.chunk();
+    }
+
+    public static RegisterChunk compile(StandardFunction f) {
+        RegisterCompiler c = new RegisterCompiler(f.getLayout(), f.getParams(), 0, -1);
+        c.function(f);
+        int arguments = c.escaped ? -1 : c.maxArgument + 1;
+        c = new RegisterCompiler(f.getLayout(), f.getParams(), c.preload.size(), arguments);
+        c.function(f);
+
+        return c.chunk();
+    }
+
+    private void program(Command cmd) {
+        command(cmd);
+        int r = newTemp();
+        emit(LOADK, r, constant(null));
+        emit(RETURN, r);
+    }
+
+    private void function(StandardFunction f) {
+        command(f.getCmds());
+        int r;
+        if (f.getRet() != null) {
+            r = operand(f.getRet(), true);
+        } else {
+            r = newTemp();
+            emit(LOADK, r, constant(null));
+        }
+        emit(RETURN, r);
+    }
+
+    // Os temporários passam a fazer parte do registro de ativação.
+    private RegisterChunk chunk() {
+        for (int i = base; i < maxTemp; i++)
+            layout.allocate();
+
+        Value<?>[] frame = new Value<?>[layout.size()];
+        for (int i = 0; i < preload.size(); i++)
+            frame[base + i] = preload.get(i);
+
+        return new RegisterChunk(Arrays.copyOf(code, size), constants.toArray(),
+            frame, base, preload.size(), argBase, arguments, maxNumber, maxLoops, calls);
+    }
+
+    private void command(Command cmd) {
+        int mark = temp;
+        int nmark = number;
+
+        if (cmd instanceof BlocksCommand) {
+            for (Command c : ((BlocksCommand) cmd).getCmds())
+                command(c);
+
+        } else if (cmd instanceof AssignCommand) {
+            AssignCommand acmd = (AssignCommand) cmd;
+            SetExpr lhs = acmd.getLhs();
+            Expr rhs = acmd.getRhs();
+            if (lhs == null) {
+                if (rhs instanceof UnaryExpr)
+                    unary((UnaryExpr) rhs, -1);
+                else if (!pure(rhs))
+                    operand(rhs, true);
+            } else if (lhs instanceof Variable && writable((Variable) lhs) && direct(rhs)) {
+                exprInto(rhs, slot((Variable) lhs));
+            } else {
+                boolean stable = !(lhs instanceof AcessExpr) ||
+                    (simple(((AcessExpr) lhs).getBase()) && simple(((AcessExpr) lhs).getIndex()));
+                store(lhs, operand(rhs, stable));
+            }
+
+        } else if (cmd instanceof InitializeCommand) {
+            InitializeCommand icmd = (InitializeCommand) cmd;
+            Variable var = icmd.getVar();
+            if (local(var) && direct(icmd.getExpr())) {
+                exprInto(icmd.getExpr(), slot(var));
+            } else {
+                int r = operand(icmd.getExpr(), true);
+                if (local(var))
+                    move(slot(var), r);
+                else
+                    emit(SETUP, constant(var.getLayout()), slot(var), r);
+            }
+
+        } else if (cmd instanceof DebugCommand) {
+            emit(DEBUG, operand(((DebugCommand) cmd).getExpr(), true));
+
+        } else if (cmd instanceof IfCommand) {
+            IfCommand ifcmd = (IfCommand) cmd;
+            int otherwise = jumpFalse(ifcmd.getExpr());
+            temp = mark;
+            command(ifcmd.getThenCmds());
+            if (ifcmd.getElseCmds() != null) {
+                emit(JUMP, -1);
+                int end = size - 1;
+                code[otherwise] = size;
+                command(ifcmd.getElseCmds());
+                code[end] = size;
+            } else {
+                code[otherwise] = size;
+            }
+
+        } else if (cmd instanceof WhileCommand) {
+            // A condição é repetida no fim do corpo, que volta ao início
+            // enquanto ela for verdadeira: um desvio por volta, não dois.
+            WhileCommand wcmd = (WhileCommand) cmd;
+            int exit = jumpFalse(wcmd.getExpr());
+            temp = mark;
+            int body = size;
+            command(wcmd.getCmds());
+            jumpTrue(wcmd.getExpr(), body);
+            code[exit] = size;
+
+        } else if (cmd instanceof ForCommand) {
+            ForCommand fcmd = (ForCommand) cmd;
+            // O valor percorrido é copiado para um temporário reservado
+            // durante todo o laço, pois o corpo pode reatribuir a variável.
+            int s = operand(fcmd.getExpr(), true);
+            temp = mark;
+            int l = newTemp();
+            int k = loops++;
+            maxLoops = Math.max(maxLoops, loops);
+            emit(FOR_START, l, s, cmd.getLine(), k);
+
+            // O teste fica no fim do laço: FOR_NEXT volta ao corpo enquanto
+            // houver elementos, poupando um desvio por iteração.
+            emit(JUMP, -1);
+            int test = size - 1;
+            int body = size;
+            Variable var = fcmd.getVar();
+            int r = writable(var) ? slot(var) : newTemp();
+            store(var, r);
+            temp = l + 1;
+            command(fcmd.getCmds());
+            if (single(body)) {
+                // Corpo de uma só instrução aritmética ou MOVE: FOR_LIST
+                // percorre o laço inteiro sem passar pelo despacho a cada
+                // elemento.
+                int[] op = Arrays.copyOfRange(code, body, body + 4);
+                size = test - 1;
+                emit(FOR_LIST, r, l, k, op[0], op[1], op[2], op[0] == MOVE ? 0 : op[3]);
+            } else {
+                code[test] = size;
+                emit(FOR_NEXT, r, body, l, k);
+            }
+            loops--;
+
+        } else {
+            throw new IllegalStateException("Unsupported command: " +
+                cmd.getClass().getSimpleName());
+        }
+
+        temp = mark;
+        number = nmark;
+    }
+
+    // Se o código a partir de start é uma única instrução ADD a DIV ou MOVE.
+    private boolean single(int start) {
+        if (start == size)
+            return false;
+
+        switch (code[start]) {
+            case ADD:
+            case SUB:
+            case MUL:
+            case DIV:
+                return size - start == 4;
+            case MOVE:
+                return size - start == 3;
+            default:
+                return false;
+        }
+    }
+
+    // Gera o desvio tomado quando a condição é falsa e devolve a posição do
+    // endereço a ser corrigido. Comparações numéricas são desviadas
+    // diretamente, sem criar o BoolValue intermediário.
+    private int jumpFalse(Expr cond) {
+        if (cond instanceof BinaryExpr) {
+            BinaryExpr bexpr = (BinaryExpr) cond;
+            switch (bexpr.getOp()) {
+                case LowerThan:
+                case LowerEqual:
+                case GreaterThan:
+                case GreaterEqual:
+                    int a = number(bexpr.getLeft(), simple(bexpr.getRight()), true);
+                    int b = number(bexpr.getRight(), true, true);
+                    emit(COMPARE_FALSE, binary(bexpr.getOp()), a, b, -1);
+                    return size - 1;
+                default:
+                    break;
+            }
+        }
+
+        emit(JUMP_FALSE, operand(cond, true), -1);
+        return size - 1;
+    }
+
+    // O desvio para addr quando a condição é verdadeira, para o fim de um
+    // laço.
+    private void jumpTrue(Expr cond, int addr) {
+        int mark = temp;
+        int nmark = number;
+        if (cond instanceof BinaryExpr) {
+            BinaryExpr bexpr = (BinaryExpr) cond;
+            switch (bexpr.getOp()) {
+                case LowerThan:
+                case LowerEqual:
+                case GreaterThan:
+                case GreaterEqual:
+                    int a = number(bexpr.getLeft(), simple(bexpr.getRight()), true);
+                    int b = number(bexpr.getRight(), true, true);
+                    emit(COMPARE_TRUE, binary(bexpr.getOp()), a, b, addr);
+                    temp = mark;
+                    number = nmark;
+                    return;
+                default:
+                    break;
+            }
+        }
+
+        emit(JUMP_TRUE, operand(cond, true), addr);
+        temp = mark;
+        number = nmark;
+    }
+
+    // Devolve um registrador com o valor da expressão. Uma variável local é
+    // usada no próprio registrador apenas se nada avaliado depois dela
+    // puder alterá-la (stable).
+    private int operand(Expr expr, boolean stable) {
+        if (stable && expr instanceof Variable && local((Variable) expr))
+            return slot((Variable) expr);
+
+        if (arguments >= 0 && argument(expr) >= 0)
+            return argBase + argument(expr);
+
+        if (expr instanceof ConstExpr)
+            return register(((ConstExpr) expr).getValue());
+
+        int r = newTemp();
+        exprInto(expr, r);
+        temp = r + 1;
+
+        return r;
+    }
+
+    // O operando de uma operação aritmética (converted) ou de uma soma: as
+    // operações aritméticas vão para um temporário numérico; o resto, para
+    // um registrador. Numa soma, só é convertido o que certamente é número.
+    private int number(Expr expr, boolean stable, boolean converted) {
+        if (!arithmetic(expr) || !(converted || expr.isNumeric()))
+            return operand(expr, stable);
+
+        int n = number++;
+        maxNumber = Math.max(maxNumber, number);
+        exprInto(expr, ~n);
+
+        return ~n;
+    }
+
+    private static boolean arithmetic(Expr expr) {
+        if (!(expr instanceof BinaryExpr))
+            return false;
+
+        switch (((BinaryExpr) expr).getOp()) {
+            case Add:
+            case Sub:
+            case Mul:
+            case Div:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // Avalia a expressão e grava o resultado em dst. O registrador dst só é
+    // escrito pela última instrução gerada. Um dst negativo (~n) é o
+    // temporário numérico n e só é aceito pelas operações aritméticas.
+    private void exprInto(Expr expr, int dst) {
+        int mark = temp;
+        int nmark = number;
+
+        if (expr instanceof ConstExpr) {
+            emit(LOADK, dst, constant(((ConstExpr) expr).getValue()));
+
+        } else if (expr instanceof FunctionExpr) {
+            emit(CLOSURE, dst, constant(expr));
+
+        } else if (expr instanceof Variable) {
+            Variable var = (Variable) expr;
+            if (local(var))
+                move(dst, slot(var));
+            else
+                emit(GETUP, dst, constant(var.getLayout()), slot(var));
+
+        } else if (argument(expr) >= 0) {
+            int k = argument(expr);
+            maxArgument = Math.max(maxArgument, k);
+            if (arguments >= 0)
+                move(dst, argBase + k);
+            else
+                emit(GET, dst, params.getSlot(), operand(((AcessExpr) expr).getIndex(), true), expr.getLine());
+
+        } else if (expr instanceof AcessExpr) {
+            AcessExpr aexpr = (AcessExpr) expr;
+            int b = operand(aexpr.getBase(), simple(aexpr.getIndex()));
+            if (!pure(aexpr.getIndex()))
+                emit(CHECK_INDEXABLE, b, expr.getLine());
+            int i = operand(aexpr.getIndex(), true);
+            emit(GET, dst, b, i, expr.getLine());
+
+        } else if (arithmetic(expr)) {
+            BinaryExpr bexpr = (BinaryExpr) expr;
+            boolean converted = bexpr.getOp() != BinaryExpr.Op.Add;
+            int a = number(bexpr.getLeft(), simple(bexpr.getRight()), converted);
+            int b = number(bexpr.getRight(), true, converted);
+            emit(binary(bexpr.getOp()), dst, a, b);
+
+        } else if (expr instanceof BinaryExpr) {
+            BinaryExpr bexpr = (BinaryExpr) expr;
+            int a = operand(bexpr.getLeft(), simple(bexpr.getRight()));
+            int b = operand(bexpr.getRight(), true);
+            emit(binary(bexpr.getOp()), dst, a, b);
+
+        } else if (expr instanceof UnaryExpr) {
+            unary((UnaryExpr) expr, dst);
+
+        } else if (expr instanceof ConditionalExpr) {
+            ConditionalExpr cexpr = (ConditionalExpr) expr;
+            int c = operand(cexpr.getCond(),
+                simple(cexpr.getTrueExpr()) && simple(cexpr.getFalseExpr()));
+            int t = operand(cexpr.getTrueExpr(), simple(cexpr.getFalseExpr()));
+            int f = operand(cexpr.getFalseExpr(), true);
+            emit(SELECT, dst, c, t, f);
+
+        } else if (expr instanceof FunctionCallExpr) {
+            FunctionCallExpr fexpr = (FunctionCallExpr) expr;
+            boolean pure = true;
+            boolean simple = true;
+            for (Expr a : fexpr.getArgs()) {
+                pure &= pure(a);
+                simple &= simple(a);
+            }
+
+            int f = operand(fexpr.getExpr(), simple);
+            if (!pure)
+                emit(CHECK_CALLABLE, f, expr.getLine());
+
+            // Os argumentos vão na própria instrução; uma variável local é
+            // passada no seu registrador se os argumentos seguintes não
+            // puderem alterá-la.
+            List<Expr> args = fexpr.getArgs();
+            int[] call = new int[6 + args.size()];
+            call[0] = CALL;
+            call[1] = dst;
+            call[2] = f;
+            call[3] = args.size();
+            call[4] = expr.getLine();
+            call[5] = calls++;
+            for (int i = 0; i < args.size(); i++) {
+                boolean stable = true;
+                for (int j = i + 1; j < args.size(); j++)
+                    stable &= simple(args.get(j));
+                call[6 + i] = operand(args.get(i), stable);
+            }
+            emit(call);
+
+        } else {
+            throw new IllegalStateException("Unsupported expression: " +
+                expr.getClass().getSimpleName());
+        }
+
+        temp = mark;
+        number = nmark;
+    }
+
+    private void unary(UnaryExpr uexpr, int dst) {
+        if (dst < 0) {
+            switch (uexpr.getOp()) {
+                case Not:
+                case Pos:
+                case Neg:
+                    if (!pure(uexpr.getExpr()))
+                        operand(uexpr.getExpr(), true);
+                    return;
+                default:
+                    break;
+            }
+        }
+
+        switch (uexpr.getOp()) {
+            case Not:
+                emit(NOT, dst, operand(uexpr.getExpr(), true));
+                return;
+            case Pos:
+                emit(POS, dst, operand(uexpr.getExpr(), true));
+                return;
+            case Neg:
+                emit(NEG, dst, operand(uexpr.getExpr(), true));
+                return;
+            default:
+                break;
+        }
+
+        int s = operand(uexpr.getExpr(), true);
+        if (!(uexpr.getExpr() instanceof SetExpr)) {
+            emit(THROW, uexpr.getLine());
+            return;
+        }
+
+        UnaryExpr.Op op = uexpr.getOp();
+        int delta = (op == UnaryExpr.Op.PreInc || op == UnaryExpr.Op.PosInc) ? 1 : -1;
+        int post = (op == UnaryExpr.Op.PosInc || op == UnaryExpr.Op.PosDec) ? 1 : 0;
+        // O novo valor vai direto para a variável local, quando possível; se
+        // o resultado for descartado (dst < 0), d e n coincidem.
+        SetExpr target = (SetExpr) uexpr.getExpr();
+        int n = (target instanceof Variable && writable((Variable) target)) ?
+            slot((Variable) target) : newTemp();
+        emit(INC_DEC, dst < 0 ? n : dst, n, s, delta, post);
+        store(target, n);
+    }
+
+    // Grava o registrador r no destino, reavaliando base e índice como
+    // SetExpr.setValue faz.
+    private void store(SetExpr target, int r) {
+        if (target instanceof Variable) {
+            Variable var = (Variable) target;
+            if (var.isConstant())
+                emit(THROW, var.getLine());
+            else if (local(var))
+                move(slot(var), r);
+            else
+                emit(SETUP, constant(var.getLayout()), slot(var), r);
+        } else {
+            AcessExpr aexpr = (AcessExpr) target;
+            int b = operand(aexpr.getBase(), simple(aexpr.getIndex()));
+            if (!pure(aexpr.getIndex()))
+                emit(CHECK_INDEXABLE, b, target.getLine());
+            int i = operand(aexpr.getIndex(), true);
+            emit(SET, b, i, r, target.getLine());
+        }
+    }
+
+    // O registrador de uma variável. Qualquer uso de params que não seja
+    // params[k] obriga a criar a ListValue.
+    private int slot(Variable var) {
+        if (params(var))
+            escaped = true;
+
+        return var.getSlot();
+    }
+
+    // O k de params[k], para k constante em [0, MAX_ARGUMENTS); ou -1.
+    private int argument(Expr expr) {
+        if (!(expr instanceof AcessExpr))
+            return -1;
+
+        AcessExpr aexpr = (AcessExpr) expr;
+        if (!params(aexpr.getBase()) || !(aexpr.getIndex() instanceof ConstExpr))
+            return -1;
+
+        Value<?> v = ((ConstExpr) aexpr.getIndex()).getValue();
+        if (!(v instanceof NumberValue))
+            return -1;
+
+        double k = ((NumberValue) v).doubleValue();
+        return k >= 0 && k < MAX_ARGUMENTS && k == (int) k ? (int) k : -1;
+    }
+
+    // Pela posição: as árvores lidas do cache têm um Variable por uso.
+    private boolean params(Expr expr) {
+        if (params == null || !(expr instanceof Variable))
+            return false;
+
+        Variable var = (Variable) expr;
+        return var.getLayout() == params.getLayout() && var.getSlot() == params.getSlot();
+    }
+
+    private void move(int dst, int src) {
+        if (dst != src)
+            emit(MOVE, dst, src);
+    }
+
+    private boolean local(Variable var) {
+        return var.getLayout() == layout;
+    }
+
+    private boolean writable(Variable var) {
+        return local(var) && !var.isConstant();
+    }
+
+    private static int binary(BinaryExpr.Op op) {
+        switch (op) {
+            case And:
+                return AND;
+            case Or:
+                return OR;
+            case Equal:
+                return EQUAL;
+            case NotEqual:
+                return NOT_EQUAL;
+            case LowerThan:
+                return LOWER_THAN;
+            case LowerEqual:
+                return LOWER_EQUAL;
+            case GreaterThan:
+                return GREATER_THAN;
+            case GreaterEqual:
+                return GREATER_EQUAL;
+            case Add:
+                return ADD;
+            case Sub:
+                return SUB;
+            case Mul:
+                return MUL;
+            case Div:
+            default:
+                return DIV;
+        }
+    }
+
+    // Expressões que não podem ter efeito algum, nem lançar exceções.
+    private static boolean pure(Expr expr) {
+        return expr instanceof ConstExpr || expr instanceof Variable;
+    }
+
+    // Expressões que não alteram variáveis (podem apenas lançar exceções).
+    private static boolean simple(Expr expr) {
+        if (pure(expr)) {
+            return true;
+        } else if (expr instanceof BinaryExpr) {
+            BinaryExpr bexpr = (BinaryExpr) expr;
+            return simple(bexpr.getLeft()) && simple(bexpr.getRight());
+        } else if (expr instanceof UnaryExpr) {
+            UnaryExpr uexpr = (UnaryExpr) expr;
+            switch (uexpr.getOp()) {
+                case Not:
+                case Pos:
+                case Neg:
+                    return simple(uexpr.getExpr());
+                default:
+                    return false;
+            }
+        } else if (expr instanceof ConditionalExpr) {
+            ConditionalExpr cexpr = (ConditionalExpr) expr;
+            return simple(cexpr.getCond()) && simple(cexpr.getTrueExpr()) &&
+                simple(cexpr.getFalseExpr());
+        } else if (expr instanceof AcessExpr) {
+            AcessExpr aexpr = (AcessExpr) expr;
+            return simple(aexpr.getBase()) && simple(aexpr.getIndex());
+        } else {
+            return false;
+        }
+    }
+
+    // Expressões que podem ser avaliadas direto no registrador da variável
+    // atribuída. Numa chamada, o registrador só é escrito pela CALL, depois
+    // de avaliados os argumentos; nos operadores de incremento, não (x = x++).
+    private static boolean direct(Expr expr) {
+        return simple(expr) || expr instanceof FunctionCallExpr;
+    }
+
+    private int newTemp() {
+        int r = temp++;
+        maxTemp = Math.max(maxTemp, temp);
+
+        return r;
+    }
+
+    // O registrador carregado na entrada com a constante.
+    private int register(Value<?> value) {
+        Integer r = registers.get(value);
+        if (r == null) {
+            r = base + preload.size();
+            preload.add(value);
+            registers.put(value, r);
+        }
+
+        return r;
+    }
+
+    private int constant(Object value) {
+        Integer index = indexes.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            indexes.put(value, index);
+        }
+
+        return index;
+    }
+
+    private void emit(int... words) {
+        if (size + words.length > code.length)
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + words.length));
+
+        for (int w : words)
+            code[size++] = w;
+    }
+
+}
@@ -0,0 +1,440 @@
+package interpreter.vm;
+
+import static interpreter.vm.RegisterOpcode.*;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import interpreter.FrameLayout;
+import interpreter.Budget;
+import interpreter.InterpreterContext;
+import interpreter.InterpreterException;
+import interpreter.command.Command;
+import interpreter.command.DebugCommand;
+import interpreter.command.ForCommand;
+import interpreter.expr.AcessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.FunctionExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.function.Closure;
+import interpreter.function.Function;
+import interpreter.function.StandardFunction;
+import interpreter.jfr.CallEvent;
+import interpreter.jfr.Statistics;
+import interpreter.value.BoolValue;
+import interpreter.value.FunctionValue;
+import interpreter.value.ListValue;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Executa o código de RegisterCompiler. Cada chamada de função padrão
+// recebe um novo registro de ativação (Value<?>[]) com os parâmetros, as
+// variáveis locais e os temporários da função. Os passos do Budget do
+// contexto são contados nos desvios para trás e nas chamadas.
+public class RegisterMachine {
+
+    private final InterpreterContext context;
+    private final Budget budget;
+    private final Map<Function, RegisterChunk> functions;
+    private final Map<Command, RegisterChunk> programs;
+
+    public RegisterMachine(InterpreterContext context) {
+        this.context = context;
+        this.budget = context.getBudget();
+        this.functions = new IdentityHashMap<Function, RegisterChunk>();
+        this.programs = new IdentityHashMap<Command, RegisterChunk>();
+    }
+
+    // A compilação reserva temporários na FrameLayout; por isso cada
+    // programa é compilado uma única vez por máquina.
+    public void run(Command cmd) {
+        FrameLayout layout = context.getGlobals().getLayout();
+        RegisterChunk chunk = programs.get(cmd);
+        if (chunk == null) {
+            chunk = RegisterCompiler.compile(cmd, layout);
+            programs.put(cmd, chunk);
+        }
+
+        Value<?>[] frame = layout.frame();
+        System.arraycopy(chunk.frame, chunk.preloadBase, frame, chunk.preloadBase, chunk.preloadSize);
+        execute(chunk, frame);
+    }
+
+    // O laço de despacho trata só as instruções frequentes e as operações
+    // numéricas sobre dois NumberValue; as demais ficam em métodos à parte
+    // (other, compare, call), para que execute continue pequeno o bastante
+    // para ser bem compilado pelo JIT.
+    private Value<?> execute(RegisterChunk chunk, Value<?>[] r) {
+        final int[] code = chunk.code;
+        final Object[] k = chunk.constants;
+        final double[] n = chunk.maxNumbers > 0 ? new double[chunk.maxNumbers] : null;
+        final Object[] loops = chunk.maxLoops > 0 ? new Object[chunk.maxLoops] : null;
+        final int[] positions = chunk.maxLoops > 0 ? new int[chunk.maxLoops] : null;
+        int pc = 0;
+
+        for (;;) {
+            switch (code[pc]) {
+                case MOVE:
+                    r[code[pc + 1]] = r[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case LOADK:
+                    r[code[pc + 1]] = (Value<?>) k[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case GETUP:
+                    r[code[pc + 1]] = ((FrameLayout) k[code[pc + 2]]).frame()[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case SETUP:
+                    ((FrameLayout) k[code[pc + 1]]).frame()[code[pc + 2]] = r[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case ADD: {
+                    int a = code[pc + 2];
+                    int b = code[pc + 3];
+                    if ((a < 0 || r[a] instanceof NumberValue) && (b < 0 || r[b] instanceof NumberValue))
+                        store(r, n, code[pc + 1], number(r, n, a) + number(r, n, b));
+                    else
+                        concat(r, n, code[pc + 1], a, b);
+                    pc += 4;
+                    break;
+                }
+                case SUB:
+                    store(r, n, code[pc + 1], number(r, n, code[pc + 2]) - number(r, n, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case MUL:
+                    store(r, n, code[pc + 1], number(r, n, code[pc + 2]) * number(r, n, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case DIV:
+                    store(r, n, code[pc + 1], number(r, n, code[pc + 2]) / number(r, n, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case INC_DEC: {
+                    double x = number(r, n, code[pc + 3]);
+                    NumberValue updated = NumberValue.of(x + code[pc + 4]);
+                    if (code[pc + 1] != code[pc + 2])
+                        r[code[pc + 1]] = code[pc + 5] != 0 ? NumberValue.of(x) : updated;
+                    r[code[pc + 2]] = updated;
+                    pc += 6;
+                    break;
+                }
+                case JUMP:
+                    if (code[pc + 1] < pc)
+                        budget.step();
+                    pc = code[pc + 1];
+                    break;
+                case JUMP_FALSE:
+                    pc = BoolValue.convert(r[code[pc + 1]]) ? pc + 3 : code[pc + 2];
+                    break;
+                case COMPARE_FALSE:
+                    pc = compare(code[pc + 1], number(r, n, code[pc + 2]), number(r, n, code[pc + 3])) ?
+                        pc + 5 : code[pc + 4];
+                    break;
+                case JUMP_TRUE:
+                    if (code[pc + 2] < pc)
+                        budget.step();
+                    pc = BoolValue.convert(r[code[pc + 1]]) ? code[pc + 2] : pc + 3;
+                    break;
+                case COMPARE_TRUE:
+                    if (code[pc + 4] < pc)
+                        budget.step();
+                    pc = compare(code[pc + 1], number(r, n, code[pc + 2]), number(r, n, code[pc + 3])) ?
+                        code[pc + 4] : pc + 5;
+                    break;
+                case GET:
+                    r[code[pc + 1]] = AcessExpr.get(r[code[pc + 2]], r[code[pc + 3]], code[pc + 4]);
+                    pc += 5;
+                    break;
+                case CALL:
+                    r[code[pc + 1]] = call(chunk, code, pc, r);
+                    pc += 6 + code[pc + 3];
+                    break;
+                case FOR_START: {
+                    // O valor percorrido fica no registrador l durante o
+                    // laço; listas são percorridas pela posição em
+                    // positions[k], o resto pelo Iterator em loops[k].
+                    Value<?> v = r[code[pc + 2]];
+                    int lk = code[pc + 4];
+                    r[code[pc + 1]] = v;
+                    if (v instanceof ListValue)
+                        positions[lk] = 0;
+                    else
+                        loops[lk] = ForCommand.iterator(v, code[pc + 3]);
+                    pc += 5;
+                    break;
+                }
+                case FOR_NEXT: {
+                    Value<?> loop = r[code[pc + 3]];
+                    int lk = code[pc + 4];
+                    Value<?> v;
+                    if (loop instanceof ListValue) {
+                        ListValue list = (ListValue) loop;
+                        int i = positions[lk];
+                        if (i >= list.size()) {
+                            pc += 5;
+                            break;
+                        }
+                        positions[lk] = i + 1;
+                        v = list.get(i);
+                    } else {
+                        Iterator<?> it = (Iterator<?>) loops[lk];
+                        if (!it.hasNext()) {
+                            loops[lk] = null;
+                            pc += 5;
+                            break;
+                        }
+                        v = (Value<?>) it.next();
+                    }
+                    r[code[pc + 1]] = v;
+                    budget.step();
+                    pc = code[pc + 2];
+                    break;
+                }
+                case FOR_LIST:
+                    forList(code, pc, r, n, loops);
+                    pc += 8;
+                    break;
+                case RETURN:
+                    return r[code[pc + 1]];
+                default:
+                    pc = other(code, k, pc, r);
+                    break;
+            }
+        }
+    }
+
+    // As instruções pouco frequentes. Devolve o endereço da próxima.
+    private static int other(int[] code, Object[] k, int pc, Value<?>[] r) {
+        switch (code[pc]) {
+            case AND:
+                r[code[pc + 1]] = BinaryExpr.andOp(r[code[pc + 2]], r[code[pc + 3]]);
+                return pc + 4;
+            case OR:
+                r[code[pc + 1]] = BinaryExpr.orOp(r[code[pc + 2]], r[code[pc + 3]]);
+                return pc + 4;
+            case EQUAL:
+                r[code[pc + 1]] = BinaryExpr.equalOp(r[code[pc + 2]], r[code[pc + 3]]);
+                return pc + 4;
+            case NOT_EQUAL:
+                r[code[pc + 1]] = BinaryExpr.notEqualOp(r[code[pc + 2]], r[code[pc + 3]]);
+                return pc + 4;
+            case LOWER_THAN:
+            case LOWER_EQUAL:
+            case GREATER_THAN:
+            case GREATER_EQUAL:
+                r[code[pc + 1]] = BoolValue.of(compare(code[pc],
+                    NumberValue.convert(r[code[pc + 2]]), NumberValue.convert(r[code[pc + 3]])));
+                return pc + 4;
+            case NOT:
+                r[code[pc + 1]] = UnaryExpr.notOp(r[code[pc + 2]]);
+                return pc + 3;
+            case POS:
+                r[code[pc + 1]] = UnaryExpr.posOp(r[code[pc + 2]]);
+                return pc + 3;
+            case NEG:
+                r[code[pc + 1]] = UnaryExpr.negOp(r[code[pc + 2]]);
+                return pc + 3;
+            case SELECT:
+                r[code[pc + 1]] = BoolValue.convert(r[code[pc + 2]]) ?
+                    r[code[pc + 3]] : r[code[pc + 4]];
+                return pc + 5;
+            case CHECK_INDEXABLE:
+                if (!AcessExpr.indexable(r[code[pc + 1]]))
+                    throw new InterpreterException(code[pc + 2]);
+                return pc + 3;
+            case SET:
+                AcessExpr.set(r[code[pc + 1]], r[code[pc + 2]], r[code[pc + 3]], code[pc + 4]);
+                return pc + 5;
+            case CHECK_CALLABLE:
+                if (!(r[code[pc + 1]] instanceof FunctionValue))
+                    throw new InterpreterException(code[pc + 2]);
+                return pc + 3;
+            case DEBUG:
+                DebugCommand.print(r[code[pc + 1]]);
+                return pc + 2;
+            case THROW:
+                throw new InterpreterException(code[pc + 1]);
+            case CLOSURE:
+                r[code[pc + 1]] = ((FunctionExpr) k[code[pc + 2]]).expr();
+                return pc + 3;
+            default:
+                throw new IllegalStateException("Invalid opcode " + code[pc]);
+        }
+    }
+
+    // A instrução FOR_LIST em pc: o laço inteiro de um for cujo corpo é a
+    // instrução op x a b. Como FOR_NEXT, o tamanho da lista é relido a cada
+    // volta e a variável recebe cada elemento antes do corpo.
+    private void forList(int[] code, int pc, Value<?>[] r, double[] n, Object[] loops) {
+        int d = code[pc + 1];
+        Value<?> loop = r[code[pc + 2]];
+        int op = code[pc + 4];
+        int x = code[pc + 5];
+        int a = code[pc + 6];
+        int b = code[pc + 7];
+        if (loop instanceof ListValue) {
+            ListValue list = (ListValue) loop;
+            for (int i = 0; i < list.size(); i++) {
+                r[d] = list.get(i);
+                budget.step();
+                body(op, r, n, x, a, b);
+            }
+        } else {
+            Iterator<?> it = (Iterator<?>) loops[code[pc + 3]];
+            while (it.hasNext()) {
+                r[d] = (Value<?>) it.next();
+                budget.step();
+                body(op, r, n, x, a, b);
+            }
+            loops[code[pc + 3]] = null;
+        }
+    }
+
+    // O corpo de FOR_LIST, com a mesma semântica das instruções de execute.
+    private static void body(int op, Value<?>[] r, double[] n, int d, int a, int b) {
+        switch (op) {
+            case MOVE:
+                r[d] = r[a];
+                break;
+            case ADD:
+                if ((a < 0 || r[a] instanceof NumberValue) && (b < 0 || r[b] instanceof NumberValue))
+                    store(r, n, d, number(r, n, a) + number(r, n, b));
+                else
+                    concat(r, n, d, a, b);
+                break;
+            case SUB:
+                store(r, n, d, number(r, n, a) - number(r, n, b));
+                break;
+            case MUL:
+                store(r, n, d, number(r, n, a) * number(r, n, b));
+                break;
+            case DIV:
+            default:
+                store(r, n, d, number(r, n, a) / number(r, n, b));
+                break;
+        }
+    }
+
+    private static boolean compare(int op, double a, double b) {
+        switch (op) {
+            case LOWER_THAN:
+                return a < b;
+            case LOWER_EQUAL:
+                return a <= b;
+            case GREATER_THAN:
+                return a > b;
+            case GREATER_EQUAL:
+            default:
+                return a >= b;
+        }
+    }
+
+    // O operando a de uma operação aritmética, como número.
+    private static double number(Value<?>[] r, double[] n, int a) {
+        if (a < 0)
+            return n[~a];
+
+        Value<?> v = r[a];
+        return v instanceof NumberValue ? ((NumberValue) v).doubleValue() : NumberValue.convert(v);
+    }
+
+    private static void store(Value<?>[] r, double[] n, int d, double value) {
+        if (d < 0)
+            n[~d] = value;
+        else
+            r[d] = NumberValue.of(value);
+    }
+
+    // A soma em que algum dos lados não é número.
+    private static void concat(Value<?>[] r, double[] n, int d, int a, int b) {
+        Value<?> v1 = a < 0 ? NumberValue.of(n[~a]) : r[a];
+        Value<?> v2 = b < 0 ? NumberValue.of(n[~b]) : r[b];
+        Value<?> v = BinaryExpr.addOp(v1, v2);
+        if (d < 0)
+            n[~d] = NumberValue.convert(v);
+        else
+            r[d] = v;
+    }
+
+    // A instrução CALL em pc.
+    private Value<?> call(RegisterChunk caller, int[] code, int pc, Value<?>[] r) {
+        Value<?> v = r[code[pc + 2]];
+        int line = code[pc + 4];
+        if (!(v instanceof FunctionValue))
+            throw new InterpreterException(line);
+
+        Function f = ((FunctionValue) v).value();
+        if (!Statistics.isRecording())
+            return invoke(caller, code, pc, r, f);
+
+        CallEvent event = new CallEvent();
+        event.begin();
+        Value<?> result = invoke(caller, code, pc, r, f);
+        event.finish(f, line);
+        return result;
+    }
+
+    // Cada CALL guarda a última função padrão chamada e o seu código; só
+    // quando a função muda o código é procurado em functions.
+    private Value<?> invoke(RegisterChunk caller, int[] code, int pc, Value<?>[] r, Function f) {
+        if (f instanceof Closure) {
+            Closure c = (Closure) f;
+            Value<?>[][] saved = c.enter();
+            try {
+                return invoke(caller, code, pc, r, c.getFunction());
+            } finally {
+                c.exit(saved);
+            }
+        }
+
+        if (!(f instanceof StandardFunction))
+            return f.call(arguments(code, pc, r), code[pc + 4]);
+
+        StandardFunction sf = (StandardFunction) f;
+        budget.step();
+
+        int site = code[pc + 5];
+        RegisterChunk chunk;
+        if (caller.callees[site] == sf) {
+            chunk = caller.targets[site];
+        } else {
+            chunk = functions.get(sf);
+            if (chunk == null) {
+                chunk = RegisterCompiler.compile(sf);
+                functions.put(sf, chunk);
+            }
+            caller.callees[site] = sf;
+            caller.targets[site] = chunk;
+        }
+
+        Value<?>[] frame = chunk.frame.clone();
+        if (chunk.arguments < 0) {
+            frame[sf.getParams().getSlot()] = arguments(code, pc, r);
+        } else {
+            int n = Math.min(code[pc + 3], chunk.arguments);
+            for (int i = 0; i < n; i++)
+                frame[chunk.argBase + i] = r[code[pc + 6 + i]];
+        }
+
+        FrameLayout layout = sf.getLayout();
+        Value<?>[] saved = layout.enter(frame);
+        try {
+            return execute(chunk, frame);
+        } finally {
+            layout.exit(saved);
+        }
+    }
+
+    private static ListValue arguments(int[] code, int pc, Value<?>[] r) {
+        Value<?>[] args = new Value<?>[code[pc + 3]];
+        for (int i = 0; i < args.length; i++)
+            args[i] = r[code[pc + 6 + i]];
+
+        return new ListValue(args);
+    }
+
+}
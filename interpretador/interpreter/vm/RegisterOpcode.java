@@ -0,0 +1,52 @@
+package interpreter.vm;
+
+// Instruções da máquina de registradores. Registradores são índices no
+// registro de ativação da função: as variáveis locais ocupam os índices
+// dados por FrameLayout e os temporários vêm logo depois. Nas operações
+// aritméticas (ADD a DIV) e em COMPARE_FALSE, um operando ~n é o
+// temporário numérico n.
+public final class RegisterOpcode {
+
+    public static final int MOVE = 0;             // d s
+    public static final int LOADK = 1;            // d k
+    public static final int GETUP = 2;            // d layout slot
+    public static final int SETUP = 3;            // layout slot s
+    public static final int AND = 4;              // d a b
+    public static final int OR = 5;
+    public static final int EQUAL = 6;
+    public static final int NOT_EQUAL = 7;
+    public static final int LOWER_THAN = 8;
+    public static final int LOWER_EQUAL = 9;
+    public static final int GREATER_THAN = 10;
+    public static final int GREATER_EQUAL = 11;
+    public static final int ADD = 12;             // d a b
+    public static final int SUB = 13;
+    public static final int MUL = 14;
+    public static final int DIV = 15;
+    public static final int NOT = 16;             // d a
+    public static final int POS = 17;
+    public static final int NEG = 18;
+    public static final int INC_DEC = 19;         // d n s delta post
+    public static final int SELECT = 20;          // d c t f
+    public static final int JUMP = 21;            // addr
+    public static final int JUMP_FALSE = 22;      // c addr
+    public static final int CHECK_INDEXABLE = 23; // b line
+    public static final int GET = 24;             // d b i line
+    public static final int SET = 25;             // b i s line
+    public static final int CHECK_CALLABLE = 26;  // f line
+    public static final int CALL = 27;            // d f argc line site a1..an
+    public static final int DEBUG = 28;           // s
+    public static final int FOR_START = 29;       // l s line k
+    public static final int FOR_NEXT = 30;        // d body l k
+    public static final int THROW = 31;           // line
+    public static final int RETURN = 32;          // s
+    public static final int COMPARE_FALSE = 33;   // op a b addr
+    public static final int JUMP_TRUE = 34;       // c addr
+    public static final int COMPARE_TRUE = 35;    // op a b addr
+    public static final int CLOSURE = 36;         // d fexpr
+    public static final int FOR_LIST = 37;        // d l k op x a b
+
+    private RegisterOpcode() {
+    }
+
+}
@@ -0,0 +1,272 @@
+package interpreter.vm;
+
+import static interpreter.vm.Opcode.*;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import interpreter.FrameLayout;
+import interpreter.Budget;
+import interpreter.InterpreterContext;
+import interpreter.InterpreterException;
+import interpreter.command.Command;
+import interpreter.command.DebugCommand;
+import interpreter.command.ForCommand;
+import interpreter.expr.AcessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.FunctionExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.function.Closure;
+import interpreter.function.Function;
+import interpreter.function.StandardFunction;
+import interpreter.jfr.CallEvent;
+import interpreter.jfr.Statistics;
+import interpreter.value.BoolValue;
+import interpreter.value.FunctionValue;
+import interpreter.value.ListValue;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Executa o bytecode gerado por Compiler. As funções padrão são compiladas
+// na primeira chamada e mantidas em cache.
+public class VirtualMachine {
+
+    private final Map<Function, Chunk> functions;
+    private Budget budget;
+
+    public VirtualMachine() {
+        this.functions = new IdentityHashMap<Function, Chunk>();
+    }
+
+    // Os passos do Budget são contados nos desvios para trás (as voltas dos
+    // laços) e nas chamadas.
+    public void run(Command cmd) {
+        budget = InterpreterContext.budget();
+        execute(Compiler.compile(cmd));
+    }
+
+    private Value<?> execute(Chunk chunk) {
+        final int[] code = chunk.code;
+        final Object[] k = chunk.constants;
+        final Value<?>[] stack = new Value<?>[chunk.maxStack];
+        final Iterator<Value<?>>[] loops = loops(chunk.maxLoops);
+        int sp = 0;
+        int lp = 0;
+        int pc = 0;
+
+        for (;;) {
+            switch (code[pc++]) {
+                case CONST:
+                    stack[sp++] = (Value<?>) k[code[pc++]];
+                    break;
+                case LOAD:
+                    stack[sp++] = ((Variable) k[code[pc++]]).expr();
+                    break;
+                case STORE:
+                    ((Variable) k[code[pc++]]).setValue(stack[--sp]);
+                    break;
+                case INIT:
+                    ((Variable) k[code[pc++]]).initialize(stack[--sp]);
+                    break;
+                case POP:
+                    sp--;
+                    break;
+                case AND:
+                    sp--;
+                    stack[sp - 1] = BinaryExpr.andOp(stack[sp - 1], stack[sp]);
+                    break;
+                case OR:
+                    sp--;
+                    stack[sp - 1] = BinaryExpr.orOp(stack[sp - 1], stack[sp]);
+                    break;
+                case EQUAL:
+                    sp--;
+                    stack[sp - 1] = BinaryExpr.equalOp(stack[sp - 1], stack[sp]);
+                    break;
+                case NOT_EQUAL:
+                    sp--;
+                    stack[sp - 1] = BinaryExpr.notEqualOp(stack[sp - 1], stack[sp]);
+                    break;
+                case LOWER_THAN:
+                    sp--;
+                    stack[sp - 1] = BinaryExpr.lowerThanOp(stack[sp - 1], stack[sp]);
+                    break;
+                case LOWER_EQUAL:
+                    sp--;
+                    stack[sp - 1] = BinaryExpr.lowerEqualOp(stack[sp - 1], stack[sp]);
+                    break;
+                case GREATER_THAN:
+                    sp--;
+                    stack[sp - 1] = BinaryExpr.greaterThanOp(stack[sp - 1], stack[sp]);
+                    break;
+                case GREATER_EQUAL:
+                    sp--;
+                    stack[sp - 1] = BinaryExpr.greaterEqualOp(stack[sp - 1], stack[sp]);
+                    break;
+                case ADD:
+                    sp--;
+                    stack[sp - 1] = BinaryExpr.addOp(stack[sp - 1], stack[sp]);
+                    break;
+                case SUB:
+                    sp--;
+                    stack[sp - 1] = BinaryExpr.subOp(stack[sp - 1], stack[sp]);
+                    break;
+                case MUL:
+                    sp--;
+                    stack[sp - 1] = BinaryExpr.mulOp(stack[sp - 1], stack[sp]);
+                    break;
+                case DIV:
+                    sp--;
+                    stack[sp - 1] = BinaryExpr.divOp(stack[sp - 1], stack[sp]);
+                    break;
+                case NOT:
+                    stack[sp - 1] = UnaryExpr.notOp(stack[sp - 1]);
+                    break;
+                case POS:
+                    stack[sp - 1] = UnaryExpr.posOp(stack[sp - 1]);
+                    break;
+                case NEG:
+                    stack[sp - 1] = UnaryExpr.negOp(stack[sp - 1]);
+                    break;
+                case INC_DEC: {
+                    int delta = code[pc++];
+                    boolean post = code[pc++] != 0;
+                    double n = NumberValue.convert(stack[sp - 1]);
+                    stack[sp - 1] = NumberValue.of(post ? n : n + delta);
+                    stack[sp++] = NumberValue.of(n + delta);
+                    break;
+                }
+                case SELECT:
+                    sp -= 2;
+                    stack[sp - 1] = BoolValue.convert(stack[sp - 1]) ?
+                        stack[sp] : stack[sp + 1];
+                    break;
+                case JUMP:
+                    if (code[pc] < pc && budget != null)
+                        budget.step();
+                    pc = code[pc];
+                    break;
+                case JUMP_FALSE:
+                    if (BoolValue.convert(stack[--sp]))
+                        pc++;
+                    else
+                        pc = code[pc];
+                    break;
+                case CHECK_INDEXABLE:
+                    if (!AcessExpr.indexable(stack[sp - 1]))
+                        throw new InterpreterException(code[pc]);
+                    pc++;
+                    break;
+                case GET:
+                    sp--;
+                    stack[sp - 1] = AcessExpr.get(stack[sp - 1], stack[sp], code[pc++]);
+                    break;
+                case SET:
+                    sp -= 3;
+                    AcessExpr.set(stack[sp + 1], stack[sp + 2], stack[sp], code[pc++]);
+                    break;
+                case CHECK_CALLABLE:
+                    if (!(stack[sp - 1] instanceof FunctionValue))
+                        throw new InterpreterException(code[pc]);
+                    pc++;
+                    break;
+                case CALL: {
+                    int argc = code[pc++];
+                    int line = code[pc++];
+                    Value<?>[] args = Arrays.copyOfRange(stack, sp - argc, sp);
+                    sp -= argc;
+                    stack[sp - 1] = call(stack[sp - 1], new ListValue(args), line);
+                    break;
+                }
+                case DEBUG:
+                    DebugCommand.print(stack[--sp]);
+                    break;
+                case CLOSURE:
+                    stack[sp++] = ((FunctionExpr) k[code[pc++]]).expr();
+                    break;
+                case FOR_START:
+                    loops[lp++] = ForCommand.iterator(stack[--sp], code[pc++]);
+                    break;
+                case FOR_NEXT:
+                    if (loops[lp - 1].hasNext()) {
+                        ((Variable) k[code[pc]]).setValue(loops[lp - 1].next());
+                        pc += 2;
+                    } else {
+                        loops[--lp] = null;
+                        pc = code[pc + 1];
+                    }
+                    break;
+                case THROW:
+                    throw new InterpreterException(code[pc]);
+                case RETURN:
+                    return stack[--sp];
+                default:
+                    throw new IllegalStateException("Invalid opcode " + code[pc - 1]);
+            }
+        }
+    }
+
+    // Os iteradores dos for em andamento.
+    @SuppressWarnings("unchecked")
+    private static Iterator<Value<?>>[] loops(int n) {
+        return (Iterator<Value<?>>[]) new Iterator<?>[n];
+    }
+
+    private Value<?> call(Value<?> v, ListValue args, int line) {
+        if (!(v instanceof FunctionValue))
+            throw new InterpreterException(line);
+
+        Function f = ((FunctionValue) v).value();
+        if (!Statistics.isRecording())
+            return invoke(f, args, line);
+
+        CallEvent event = new CallEvent();
+        event.begin();
+        Value<?> result = invoke(f, args, line);
+        event.finish(f, line);
+        return result;
+    }
+
+    private Value<?> invoke(Function f, ListValue args, int line) {
+        if (f instanceof StandardFunction)
+            return call((StandardFunction) f, args);
+
+        if (f instanceof Closure) {
+            Closure c = (Closure) f;
+            Value<?>[][] saved = c.enter();
+            try {
+                return call(c.getFunction(), args);
+            } finally {
+                c.exit(saved);
+            }
+        }
+
+        return f.call(args, line);
+    }
+
+    private Value<?> call(StandardFunction sf, ListValue args) {
+        if (budget != null)
+            budget.step();
+
+        Chunk chunk = functions.get(sf);
+        if (chunk == null) {
+            chunk = Compiler.compile(sf);
+            functions.put(sf, chunk);
+        }
+
+        FrameLayout layout = sf.getLayout();
+        Value<?>[] frame = new Value<?>[layout.size()];
+        frame[sf.getParams().getSlot()] = args;
+
+        Value<?>[] saved = layout.enter(frame);
+        try {
+            return execute(chunk);
+        } finally {
+            layout.exit(saved);
+        }
+    }
+
+}
@@ -1,18 +1,38 @@
 package lexical;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
-import interpreter.value.NumberValue;
-import interpreter.value.TextValue;
-
 public class LexicalAnalysis implements AutoCloseable {
 
-    private int line;
-    private PushbackInputStream input;
-    private static Map<String, Token.Type> keywords;
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    // Estado compartilhado com as demais implementações do pacote.
+    int line;
+    char[] buffer;
+    int length;
+    int pos;
+    SymbolTable symbols;
+
+    private InputStream input;
+    static Map<String, Token.Type> keywords;
 
     static {
         keywords = new HashMap<String, Token.Type>();
@@ -65,11 +85,80 @@ public class LexicalAnalysis implements AutoCloseable {
     }
 
     public LexicalAnalysis(InputStream is) {
-        input = new PushbackInputStream(is);
+        input = is;
+        line = 1;
+        symbols = newSymbolTable();
+        load();
+    }
+
+    public LexicalAnalysis(CharBuffer source) {
+        input = null;
         line = 1;
+        symbols = newSymbolTable();
+        pos = 0;
+        length = source.remaining();
+        if (source.hasArray() && source.arrayOffset() == 0 && source.position() == 0) {
+            buffer = source.array();
+        } else {
+            buffer = new char[length];
+            source.get(buffer);
+        }
+    }
+
+    public static LexicalAnalysis fromFile(String filename) {
+        return new LexicalAnalysis(mapFile(filename));
+    }
+
+    // Mapeia o arquivo em memória e decodifica o conteúdo como UTF-8.
+    public static CharBuffer mapFile(String filename) {
+        return decode(mapBytes(filename));
+    }
+
+    // Mapeia o arquivo em memória sem decodificá-lo. O erro diz o arquivo
+    // e o motivo, como "nope.mjs (No such file or directory)".
+    public static MappedByteBuffer mapBytes(String filename) {
+        try {
+            if (Files.isDirectory(Paths.get(filename)))
+                throw new LexicalException(filename + " (Is a directory)");
+        } catch (IllegalArgumentException e) {
+            throw new LexicalException(filename + " (" + e.getMessage() + ")", e);
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new LexicalException(filename + " (" + reason(e) + ")", e);
+        }
+    }
+
+    // As exceções de java.nio.file trazem só o caminho na mensagem.
+    private static String reason(Exception e) {
+        if (e instanceof NoSuchFileException)
+            return "No such file or directory";
+        if (e instanceof AccessDeniedException)
+            return "Permission denied";
+        if (e instanceof FileSystemException && ((FileSystemException) e).getReason() != null)
+            return ((FileSystemException) e).getReason();
+        return e.getMessage();
+    }
+
+    public static CharBuffer decode(ByteBuffer bytes) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        try {
+            return decoder.decode(bytes);
+        } catch (CharacterCodingException e) {
+            throw new LexicalException("Unable to read file");
+        }
     }
 
     public void close() {
+        if (input == null)
+            return;
+
         try {
             input.close();
         } catch (Exception e) {
@@ -84,6 +173,11 @@ public class LexicalAnalysis implements AutoCloseable {
     public Token nextToken() {
         Token token = new Token("", Token.Type.END_OF_FILE, null);
 
+        // O lexema é recortado do buffer no intervalo [begin, end).
+        int begin = pos;
+        int end = pos;
+        boolean multiline = false;
+
         int state = 1;
         while (state != 13 && state != 14) {
             int c = getc();
@@ -92,6 +186,8 @@ public class LexicalAnalysis implements AutoCloseable {
 
             switch (state) {
                 case 1:
+                    begin = pos - 1;
+                    end = pos;
                     if (c == ' ' || c == '\t' ||
                             c == '\r') {
                         state = 1;
@@ -103,42 +199,32 @@ public class LexicalAnalysis implements AutoCloseable {
                             c == '(' || c == ')' || c == '{' ||
                             c == '}' || c == '[' || c == ']') {
                         state = 13;
-                        token.lexeme += (char) c;
                     } else if (c == '+') {
                         state = 5;
-                        token.lexeme += (char) c;
                     } else if (c == '-') {
                         state = 6;
-                        token.lexeme += (char) c;
                     } else if (c == '&') {
                         state = 7;
-                        token.lexeme += (char) c;
                     } else if (c == '|') {
                         state = 8;
-                        token.lexeme += (char) c;
                     } else if (c == '_' || c == '$' ||
                             Character.isLetter(c)) {
                         state = 9;
-                        token.lexeme += (char) c;
                     } else if (Character.isDigit(c)) {
                         state = 10;
-                        token.lexeme += (char) c;
                     } else if (c == -1) {
                         state = 14;
+                        end = begin = pos;
                         token.type = Token.Type.END_OF_FILE;
                     } else if (c == '"') {
                         state = 12;
-                        
+                        begin = end = pos;
                     } else if (c == '/'){
                         state = 2;
-                        //token.lexeme += (char) c;
                     } else if (c == '=' || c == '!' || c == '<' || c == '>') {
                         state = 4;
-                        token.lexeme += (char) c;
-
                     } else {
                         state = 14;
-                        token.lexeme += (char) c;
                         token.type = Token.Type.INVALID_TOKEN;
                     }
 
@@ -146,11 +232,8 @@ public class LexicalAnalysis implements AutoCloseable {
                 case 2:
                     if (c == '/') {
                         state = 3;
-                
-
                     } else{
                         state = 13;
-                        token.lexeme += '/';
                         ungetc(c);
                     }
                     break;
@@ -162,6 +245,7 @@ public class LexicalAnalysis implements AutoCloseable {
 
                     } else  if(c == -1){
                         state = 14;
+                        end = begin = pos;
                         token.type = Token.Type.END_OF_FILE;
 
                     } else {
@@ -174,7 +258,7 @@ public class LexicalAnalysis implements AutoCloseable {
                 case 4:
                     if (c == '='){
                         state = 13;
-                        token.lexeme += (char) c;
+                        end = pos;
 
                     } else{
                         state = 13;
@@ -184,7 +268,7 @@ public class LexicalAnalysis implements AutoCloseable {
                 case 5:
                     if (c == '+') {
                         state = 13;
-                        token.lexeme += (char) c;
+                        end = pos;
                     } else {
                         state = 13;
                         ungetc(c);
@@ -194,7 +278,7 @@ public class LexicalAnalysis implements AutoCloseable {
                 case 6:
                     if (c == '-') {
                         state = 13;
-                        token.lexeme += (char) c;
+                        end = pos;
                     } else {
                         state = 13;
                         ungetc(c);
@@ -204,7 +288,7 @@ public class LexicalAnalysis implements AutoCloseable {
                 case 7:
                     if (c == '&') {
                         state = 13;
-                        token.lexeme += (char) c;
+                        end = pos;
                     } else {
                         state = 14;
                         token.type = Token.Type.INVALID_TOKEN;
@@ -214,7 +298,7 @@ public class LexicalAnalysis implements AutoCloseable {
                 case 8:
                     if (c == '|') {
                         state = 13;
-                        token.lexeme += (char) c;
+                        end = pos;
                     } else {
                         state = 14;
                         token.type = Token.Type.INVALID_TOKEN;
@@ -226,7 +310,7 @@ public class LexicalAnalysis implements AutoCloseable {
                             Character.isLetter(c) ||
                             Character.isDigit(c)) {
                         state = 9;
-                        token.lexeme += (char) c;
+                        end = pos;
                     } else {
                         state = 13;
                         ungetc(c);
@@ -236,43 +320,42 @@ public class LexicalAnalysis implements AutoCloseable {
                 case 10:
                     if (Character.isDigit(c)) {
                         state = 10;
-                        token.lexeme += (char) c;
+                        end = pos;
                     } else if (c == '.') {
                         state = 11;
-                        token.lexeme += (char) c;
+                        end = pos;
                     } else {
                         state = 14;
                         ungetc(c);
                         token.type = Token.Type.NUMBER;
-                        token.literal = new NumberValue(toNumber(token.lexeme));
                     }
 
                     break;
                 case 11:
                     if (Character.isDigit(c)) {
                         state = 11;
-                        token.lexeme += (char) c;
+                        end = pos;
                     } else {
                         state = 14;
                         ungetc(c);
                         token.type = Token.Type.NUMBER;
-                        token.literal = new NumberValue(toNumber(token.lexeme));
                     }
 
                     break;
                 case 12:
                     if(c == '\n'){
                         line++;
+                        multiline = true;
+                        end = pos;
                     } else if(c == -1){
                         state = 14;
                         token.type = Token.Type.UNEXPECTED_EOF;
                     } else if(c != '"'){
                         state = 12;
-                        token.lexeme += (char) c;
+                        end = pos;
                     } else if (c == '"'){
                         state = 14;
                         token.type = Token.Type.TEXT;
-                        token.literal = new TextValue(token.lexeme);
                     } else {
                         state = 14;
                         token.type = Token.Type.INVALID_TOKEN;
@@ -284,39 +367,60 @@ public class LexicalAnalysis implements AutoCloseable {
             }
         }
 
+        SymbolTable.Symbol sym = multiline ?
+            symbols.intern(new String(buffer, begin, end - begin).replace("\n", "")) :
+            symbols.intern(buffer, begin, end - begin);
+        token.lexeme = sym.lexeme;
+
         if (state == 13)
-            token.type = keywords.containsKey(token.lexeme) ?
-                keywords.get(token.lexeme) : Token.Type.NAME;
+            token.type = sym.type;
+        else if (token.type == Token.Type.NUMBER)
+            token.literal = symbols.number(sym);
+        else if (token.type == Token.Type.TEXT)
+            token.literal = symbols.text(sym);
 
         token.line = this.line;
 
         return token;
     }
 
-    private int getc() {
+    private static SymbolTable newSymbolTable() {
+        SymbolTable table = new SymbolTable();
+        for (Map.Entry<String, Token.Type> e : keywords.entrySet())
+            table.define(e.getKey(), e.getValue());
+
+        return table;
+    }
+
+    // Carrega toda a entrada no buffer, lendo em blocos de BLOCK_SIZE bytes.
+    private void load() {
+        byte[] block = new byte[BLOCK_SIZE];
+        buffer = new char[BLOCK_SIZE];
+        length = 0;
+        pos = 0;
+
         try {
-            return input.read();
+            int n;
+            while ((n = input.read(block, 0, block.length)) != -1) {
+                if (length + n > buffer.length)
+                    buffer = Arrays.copyOf(buffer,
+                        Math.max(buffer.length * 2, length + n));
+
+                for (int i = 0; i < n; i++)
+                    buffer[length++] = (char) (block[i] & 0xff);
+            }
         } catch (Exception e) {
             throw new LexicalException("Unable to read file");
         }
     }
 
-    private void ungetc(int c) {
-        if (c != -1) {
-            try {
-                input.unread(c);
-            } catch (Exception e) {
-                throw new LexicalException("Unable to ungetc");
-            }
-        }
+    int getc() {
+        return pos < length ? buffer[pos++] : -1;
     }
 
-    private double toNumber(String lexeme) {
-        try {
-            return Double.parseDouble(lexeme);
-        } catch (Exception e) {
-            return 0.0;
-        }
+    void ungetc(int c) {
+        if (c != -1)
+            pos--;
     }
 
 }
@@ -6,4 +6,8 @@ public class LexicalException extends RuntimeException {
         super(msg);
     }
 
+    public LexicalException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+
 }
@@ -0,0 +1,110 @@
+package lexical;
+
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+
+// Tabela de símbolos do analisador léxico: cada lexema distinto é guardado
+// uma única vez, junto com seu tipo de token e os literais já construídos.
+class SymbolTable {
+
+    static class Symbol {
+        final String lexeme;
+        final int hash;
+        Token.Type type;
+        NumberValue number;
+        TextValue text;
+        Symbol next;
+
+        Symbol(String lexeme, int hash, Symbol next) {
+            this.lexeme = lexeme;
+            this.hash = hash;
+            this.type = Token.Type.NAME;
+            this.next = next;
+        }
+    }
+
+    private Symbol[] buckets;
+    private int size;
+
+    SymbolTable() {
+        buckets = new Symbol[256];
+        size = 0;
+    }
+
+    void define(String lexeme, Token.Type type) {
+        intern(lexeme).type = type;
+    }
+
+    Symbol intern(String lexeme) {
+        return intern(lexeme.toCharArray(), 0, lexeme.length());
+    }
+
+    Symbol intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++)
+            hash = 31 * hash + chars[offset + i];
+
+        int index = hash & (buckets.length - 1);
+        for (Symbol s = buckets[index]; s != null; s = s.next) {
+            if (s.hash == hash && matches(s.lexeme, chars, offset, length))
+                return s;
+        }
+
+        Symbol s = new Symbol(new String(chars, offset, length), hash, buckets[index]);
+        buckets[index] = s;
+        if (++size > buckets.length * 3 / 4)
+            rehash();
+
+        return s;
+    }
+
+    NumberValue number(Symbol s) {
+        if (s.number == null)
+            s.number = NumberValue.of(toNumber(s.lexeme));
+
+        return s.number;
+    }
+
+    TextValue text(Symbol s) {
+        if (s.text == null)
+            s.text = new TextValue(s.lexeme);
+
+        return s.text;
+    }
+
+    private static double toNumber(String lexeme) {
+        try {
+            return Double.parseDouble(lexeme);
+        } catch (Exception e) {
+            return 0.0;
+        }
+    }
+
+    private static boolean matches(String lexeme, char[] chars, int offset, int length) {
+        if (lexeme.length() != length)
+            return false;
+
+        for (int i = 0; i < length; i++) {
+            if (lexeme.charAt(i) != chars[offset + i])
+                return false;
+        }
+
+        return true;
+    }
+
+    private void rehash() {
+        Symbol[] old = buckets;
+        buckets = new Symbol[old.length * 2];
+        for (Symbol head : old) {
+            Symbol s = head;
+            while (s != null) {
+                Symbol next = s.next;
+                int index = s.hash & (buckets.length - 1);
+                s.next = buckets[index];
+                buckets[index] = s;
+                s = next;
+            }
+        }
+    }
+
+}
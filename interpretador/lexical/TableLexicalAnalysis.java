@@ -0,0 +1,349 @@
+package lexical;
+
+import java.io.InputStream;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+// Analisador léxico dirigido por tabelas: as classes de caracteres e as
+// transições do autômato são pré-computadas, e as palavras-chave são
+// reconhecidas por um hash perfeito gerado a partir de LexicalAnalysis.keywords.
+// Produz exatamente os mesmos tokens que LexicalAnalysis.
+public class TableLexicalAnalysis extends LexicalAnalysis {
+
+    // Classes de caracteres.
+    private static final int OTHER = 0;
+    private static final int BLANK = 1;
+    private static final int NEWLINE = 2;
+    private static final int LETTER = 3;
+    private static final int DIGIT = 4;
+    private static final int DOT = 5;
+    private static final int SYMBOL = 6;
+    private static final int PLUS = 7;
+    private static final int MINUS = 8;
+    private static final int AMP = 9;
+    private static final int BAR = 10;
+    private static final int QUOTE = 11;
+    private static final int SLASH = 12;
+    private static final int EQUAL = 13;
+    private static final int RELATION = 14;
+    private static final int EOF = 15;
+    private static final int CLASSES = 16;
+
+    // Estados.
+    private static final int START = 0;
+    private static final int IN_PLUS = 1;
+    private static final int IN_MINUS = 2;
+    private static final int IN_AMP = 3;
+    private static final int IN_BAR = 4;
+    private static final int IN_NAME = 5;
+    private static final int IN_INTEGER = 6;
+    private static final int IN_FRACTION = 7;
+    private static final int IN_TEXT = 8;
+    private static final int IN_SLASH = 9;
+    private static final int IN_COMMENT = 10;
+    private static final int IN_RELATION = 11;
+    private static final int STATES = 12;
+
+    // Ações: o byte alto da transição é a ação, o baixo é o próximo
+    // estado (MOVE e SKIP) ou o tipo de token produzido (ACCEPT e RETRACT).
+    private static final int MOVE = 1;     // consome o caractere no lexema
+    private static final int SKIP = 2;     // consome e reinicia o lexema
+    private static final int ACCEPT = 3;   // consome e termina o token
+    private static final int RETRACT = 4;  // devolve e termina o token
+    private static final int FAIL = 5;     // token inválido
+
+    // Tipos de token produzidos.
+    private static final int K_OPERATOR = 0;
+    private static final int K_WORD = 1;
+    private static final int K_NUMBER = 2;
+    private static final int K_TEXT = 3;
+    private static final int K_EOF = 4;
+    private static final int K_UNEXPECTED_EOF = 5;
+
+    private static final byte[] CLASS = new byte[128];
+    private static final int[][] DELTA = new int[STATES][CLASSES];
+
+    // Operadores de um e dois caracteres, indexados pelo primeiro caractere.
+    private static final Token.Type[] ONE_TYPE = new Token.Type[128];
+    private static final String[] ONE_TEXT = new String[128];
+    private static final Token.Type[] TWO_TYPE = new Token.Type[128];
+    private static final String[] TWO_TEXT = new String[128];
+
+    // Hash perfeito das palavras-chave.
+    private static final int WORD_BITS = 6;
+    private static int wordSeed;
+    private static final Token.Type[] WORD_TYPE = new Token.Type[1 << WORD_BITS];
+    private static final String[] WORD_TEXT = new String[1 << WORD_BITS];
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            if (c == ' ' || c == '\t' || c == '\r')
+                CLASS[c] = BLANK;
+            else if (c == '\n')
+                CLASS[c] = NEWLINE;
+            else if (c == '_' || c == '$' || Character.isLetter(c))
+                CLASS[c] = LETTER;
+            else if (Character.isDigit(c))
+                CLASS[c] = DIGIT;
+            else if (c == '.')
+                CLASS[c] = DOT;
+            else if (c == ',' || c == ':' || c == ';' || c == '?' ||
+                    c == '*' || c == '(' || c == ')' || c == '{' ||
+                    c == '}' || c == '[' || c == ']')
+                CLASS[c] = SYMBOL;
+            else if (c == '+')
+                CLASS[c] = PLUS;
+            else if (c == '-')
+                CLASS[c] = MINUS;
+            else if (c == '&')
+                CLASS[c] = AMP;
+            else if (c == '|')
+                CLASS[c] = BAR;
+            else if (c == '"')
+                CLASS[c] = QUOTE;
+            else if (c == '/')
+                CLASS[c] = SLASH;
+            else if (c == '=')
+                CLASS[c] = EQUAL;
+            else if (c == '!' || c == '<' || c == '>')
+                CLASS[c] = RELATION;
+            else
+                CLASS[c] = OTHER;
+        }
+
+        // Por padrão, cada estado termina o token devolvendo o caractere.
+        fill(IN_PLUS, RETRACT, K_OPERATOR);
+        fill(IN_MINUS, RETRACT, K_OPERATOR);
+        fill(IN_AMP, FAIL, 0);
+        fill(IN_BAR, FAIL, 0);
+        fill(IN_NAME, RETRACT, K_WORD);
+        fill(IN_INTEGER, RETRACT, K_NUMBER);
+        fill(IN_FRACTION, RETRACT, K_NUMBER);
+        fill(IN_TEXT, MOVE, IN_TEXT);
+        fill(IN_SLASH, RETRACT, K_OPERATOR);
+        fill(IN_COMMENT, SKIP, IN_COMMENT);
+        fill(IN_RELATION, RETRACT, K_OPERATOR);
+        fill(START, FAIL, 0);
+
+        set(START, BLANK, SKIP, START);
+        set(START, NEWLINE, SKIP, START);
+        set(START, LETTER, MOVE, IN_NAME);
+        set(START, DIGIT, MOVE, IN_INTEGER);
+        set(START, DOT, ACCEPT, K_OPERATOR);
+        set(START, SYMBOL, ACCEPT, K_OPERATOR);
+        set(START, PLUS, MOVE, IN_PLUS);
+        set(START, MINUS, MOVE, IN_MINUS);
+        set(START, AMP, MOVE, IN_AMP);
+        set(START, BAR, MOVE, IN_BAR);
+        set(START, QUOTE, SKIP, IN_TEXT);
+        set(START, SLASH, MOVE, IN_SLASH);
+        set(START, EQUAL, MOVE, IN_RELATION);
+        set(START, RELATION, MOVE, IN_RELATION);
+        set(START, EOF, ACCEPT, K_EOF);
+
+        set(IN_PLUS, PLUS, ACCEPT, K_OPERATOR);
+        set(IN_MINUS, MINUS, ACCEPT, K_OPERATOR);
+        set(IN_AMP, AMP, ACCEPT, K_OPERATOR);
+        set(IN_BAR, BAR, ACCEPT, K_OPERATOR);
+        set(IN_NAME, LETTER, MOVE, IN_NAME);
+        set(IN_NAME, DIGIT, MOVE, IN_NAME);
+        set(IN_INTEGER, DIGIT, MOVE, IN_INTEGER);
+        set(IN_INTEGER, DOT, MOVE, IN_FRACTION);
+        set(IN_FRACTION, DIGIT, MOVE, IN_FRACTION);
+        set(IN_TEXT, QUOTE, ACCEPT, K_TEXT);
+        set(IN_TEXT, EOF, ACCEPT, K_UNEXPECTED_EOF);
+        set(IN_SLASH, SLASH, SKIP, IN_COMMENT);
+        set(IN_COMMENT, NEWLINE, SKIP, START);
+        set(IN_COMMENT, EOF, ACCEPT, K_EOF);
+        set(IN_RELATION, EQUAL, ACCEPT, K_OPERATOR);
+
+        for (Map.Entry<String, Token.Type> e : keywords.entrySet()) {
+            String lexeme = e.getKey();
+            char first = lexeme.charAt(0);
+            if (CLASS[first] == LETTER)
+                continue;
+
+            if (lexeme.length() == 1) {
+                ONE_TYPE[first] = e.getValue();
+                ONE_TEXT[first] = lexeme;
+            } else {
+                TWO_TYPE[first] = e.getValue();
+                TWO_TEXT[first] = lexeme;
+            }
+        }
+
+        generateWordHash();
+    }
+
+    public TableLexicalAnalysis(InputStream is) {
+        super(is);
+    }
+
+    public TableLexicalAnalysis(CharBuffer source) {
+        super(source);
+    }
+
+    public static TableLexicalAnalysis fromFile(String filename) {
+        return new TableLexicalAnalysis(mapFile(filename));
+    }
+
+    @Override
+    public Token nextToken() {
+        Token token = new Token("", Token.Type.END_OF_FILE, null);
+
+        int begin = pos;
+        int state = START;
+        boolean multiline = false;
+        while (true) {
+            int c = getc();
+            int cls = c < 0 ? EOF :
+                c < 128 ? CLASS[c] :
+                Character.isLetter(c) ? LETTER :
+                Character.isDigit(c) ? DIGIT : OTHER;
+
+            int t = DELTA[state][cls];
+            int next = t & 0xff;
+            switch (t >>> 8) {
+                case MOVE:
+                    if (cls == NEWLINE) {
+                        line++;
+                        multiline = true;
+                    }
+                    state = next;
+                    break;
+                case SKIP:
+                    if (cls == NEWLINE)
+                        line++;
+                    begin = pos;
+                    state = next;
+                    break;
+                case ACCEPT:
+                    finish(token, next, begin, next == K_TEXT ? pos - 1 : pos, multiline);
+                    return token;
+                case RETRACT:
+                    ungetc(c);
+                    finish(token, next, begin, pos, multiline);
+                    return token;
+                case FAIL:
+                default:
+                    token.lexeme = String.valueOf(buffer[begin]);
+                    token.type = Token.Type.INVALID_TOKEN;
+                    token.line = line;
+                    return token;
+            }
+        }
+    }
+
+    private void finish(Token token, int kind, int begin, int end, boolean multiline) {
+        int len = end - begin;
+        switch (kind) {
+            case K_OPERATOR: {
+                char first = buffer[begin];
+                token.lexeme = len == 1 ? ONE_TEXT[first] : TWO_TEXT[first];
+                token.type = len == 1 ? ONE_TYPE[first] : TWO_TYPE[first];
+                break;
+            }
+            case K_WORD: {
+                int slot = wordSlot(buffer, begin, len);
+                String word = WORD_TEXT[slot];
+                if (word != null && sameWord(word, buffer, begin, len)) {
+                    token.lexeme = word;
+                    token.type = WORD_TYPE[slot];
+                } else {
+                    token.lexeme = symbols.intern(buffer, begin, len).lexeme;
+                    token.type = Token.Type.NAME;
+                }
+                break;
+            }
+            case K_NUMBER: {
+                SymbolTable.Symbol sym = symbols.intern(buffer, begin, len);
+                token.lexeme = sym.lexeme;
+                token.type = Token.Type.NUMBER;
+                token.literal = symbols.number(sym);
+                break;
+            }
+            case K_TEXT: {
+                SymbolTable.Symbol sym = multiline ?
+                    symbols.intern(new String(buffer, begin, len).replace("\n", "")) :
+                    symbols.intern(buffer, begin, len);
+                token.lexeme = sym.lexeme;
+                token.type = Token.Type.TEXT;
+                token.literal = symbols.text(sym);
+                break;
+            }
+            case K_UNEXPECTED_EOF:
+                token.lexeme = new String(buffer, begin, len).replace("\n", "");
+                token.type = Token.Type.UNEXPECTED_EOF;
+                break;
+            case K_EOF:
+            default:
+                token.type = Token.Type.END_OF_FILE;
+                break;
+        }
+
+        token.line = line;
+    }
+
+    private static void fill(int state, int action, int next) {
+        for (int cls = 0; cls < CLASSES; cls++)
+            set(state, cls, action, next);
+    }
+
+    private static void set(int state, int cls, int action, int next) {
+        DELTA[state][cls] = (action << 8) | next;
+    }
+
+    private static boolean sameWord(String word, char[] chars, int offset, int length) {
+        if (word.length() != length)
+            return false;
+
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != chars[offset + i])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static int wordHash(char[] chars, int offset, int length) {
+        int h = length;
+        for (int i = 0; i < length; i++)
+            h = 31 * h + chars[offset + i];
+
+        return h;
+    }
+
+    private static int wordSlot(char[] chars, int offset, int length) {
+        return (wordHash(chars, offset, length) * wordSeed) >>> (32 - WORD_BITS);
+    }
+
+    // Procura um multiplicador que espalhe todas as palavras-chave em
+    // posições distintas da tabela.
+    private static void generateWordHash() {
+        for (int seed = 1; ; seed += 2) {
+            wordSeed = seed;
+            Arrays.fill(WORD_TEXT, null);
+
+            boolean perfect = true;
+            for (Map.Entry<String, Token.Type> e : keywords.entrySet()) {
+                String word = e.getKey();
+                if (CLASS[word.charAt(0)] != LETTER)
+                    continue;
+
+                int slot = wordSlot(word.toCharArray(), 0, word.length());
+                if (WORD_TEXT[slot] != null) {
+                    perfect = false;
+                    break;
+                }
+
+                WORD_TEXT[slot] = word;
+                WORD_TYPE[slot] = e.getValue();
+            }
+
+            if (perfect)
+                return;
+        }
+    }
+
+}
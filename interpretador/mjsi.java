@@ -1,56 +1,298 @@
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
-import java.io.FileInputStream;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import interpreter.Interpreter;
+import interpreter.InterpreterContext;
+import interpreter.cache.ScriptCache;
 import interpreter.command.Command;
+import interpreter.jfr.Statistics;
+import interpreter.optimizer.Optimizer;
+import interpreter.output.AsyncSink;
+import interpreter.output.FlushPolicy;
+import interpreter.output.OutputSink;
+import interpreter.output.StreamSink;
+import interpreter.profiler.Profiler;
+import interpreter.vm.RegisterMachine;
+import interpreter.vm.VirtualMachine;
 //import interpreter.expr.Expr;
 import lexical.LexicalAnalysis;
+import lexical.LexicalException;
+import lexical.TableLexicalAnalysis;
 import syntatic.SyntaticAnalysis;
 
 public class mjsi {
+
+    private static boolean tableLexer = false;
+    private static String vm = null;
+    private static ScriptCache cache = null;
+    private static boolean optimize = true;
+    private static FlushPolicy flush = null;
+    private static boolean async = false;
+    private static Long seed = null;
+    private static Long maxSteps = null;
+    private static Long timeout = null;
+    private static boolean profile = false;
+    private static Path collapsed = null;
+    private static Profiler profiler = null;
+
     public static void main(String[] args) {
         try {
-            switch (args.length) {
-                case 0:
-                    runPrompt();
-                    break;
-                case 1:
-                    runFile(args[0]);
-                    break;
-                default:
-                    System.out.println("Usage: java mjsi [miniJScript file]");
-                    break;
+            List<String> files = new ArrayList<String>();
+            for (String arg : args) {
+                if (!arg.startsWith("-")) {
+                    files.add(arg);
+                } else if (!option(arg)) {
+                    usage();
+                    return;
+                }
+            }
+
+            // Com o JFR iniciado (-XX:StartFlightRecording), as contagens
+            // periódicas também são gravadas.
+            if (Statistics.isRecording())
+                Statistics.install();
+
+            // O profiler só instrumenta a árvore; as VMs rodam sem ele.
+            if (profile) {
+                if (vm != null) {
+                    System.err.println("--profile uses the tree interpreter; ignoring --vm");
+                    vm = null;
+                }
+                profiler = new Profiler();
+                profiler.start();
             }
+
+            // Cada arquivo roda em um contexto próprio; a saída é a mesma. O
+            // contexto fica associado à thread também durante a análise,
+            // que avalia as listas e objetos literais.
+            try (OutputSink output = output(files.isEmpty())) {
+                if (files.isEmpty()) {
+                    InterpreterContext context = context(output);
+                    InterpreterContext saved = context.enter();
+                    try {
+                        runPrompt(context);
+                    } finally {
+                        InterpreterContext.exit(saved);
+                    }
+                }
+                for (String file : files) {
+                    InterpreterContext context = context(output);
+                    InterpreterContext saved = context.enter();
+                    try {
+                        runFile(context, file);
+                    } finally {
+                        InterpreterContext.exit(saved);
+                    }
+                }
+            }
+
+            if (profiler != null)
+                report();
         } catch (Exception e) {
             System.err.println("Internal error: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private static void runPrompt() throws Exception {
-        InputStreamReader input = new InputStreamReader(System.in);
-        BufferedReader reader = new BufferedReader(input);
+    private static boolean option(String arg) {
+        switch (arg) {
+            case "--lexer=state":
+                tableLexer = false;
+                return true;
+            case "--lexer=table":
+                tableLexer = true;
+                return true;
+            case "--vm":
+            case "--vm=stack":
+                vm = "stack";
+                return true;
+            case "--vm=register":
+                vm = "register";
+                return true;
+            case "-O0":
+                optimize = false;
+                return true;
+            case "-O1":
+                optimize = true;
+                return true;
+            case "--cache":
+                cache = new ScriptCache();
+                return true;
+            case "--flush=line":
+                flush = FlushPolicy.LINE;
+                return true;
+            case "--flush=size":
+                flush = FlushPolicy.SIZE;
+                return true;
+            case "--flush=time":
+                flush = FlushPolicy.TIME;
+                return true;
+            case "--async-output":
+                async = true;
+                return true;
+            default:
+                if (arg.startsWith("--cache=")) {
+                    cache = new ScriptCache(Paths.get(arg.substring(8)));
+                    return true;
+                }
+                if (arg.equals("--profile")) {
+                    profile = true;
+                    return true;
+                }
+                if (arg.startsWith("--profile=")) {
+                    profile = true;
+                    collapsed = Paths.get(arg.substring(10));
+                    return true;
+                }
+                if (arg.startsWith("--max-steps=")) {
+                    maxSteps = number(arg.substring(12));
+                    return maxSteps != null;
+                }
+                if (arg.startsWith("--timeout=")) {
+                    timeout = number(arg.substring(10));
+                    return timeout != null;
+                }
+                if (arg.startsWith("--seed=")) {
+                    try {
+                        seed = Long.parseLong(arg.substring(7));
+                        return true;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+                return false;
+        }
+    }
+
+    // Um inteiro não negativo; null se inválido.
+    private static Long number(String s) {
+        try {
+            long n = Long.parseLong(s);
+            return n >= 0 ? n : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Usage: java mjsi [options] [miniJScript file ...]");
+        System.out.println("Options:");
+        System.out.println("  -O0|-O1              disable/enable constant folding and simplifications (default: -O1)");
+        System.out.println("  --lexer=state|table  lexical analyzer backend (default: state)");
+        System.out.println("  --vm[=stack|register] compile to bytecode and run it on a VM (default: stack)");
+        System.out.println("  --cache[=dir]        reuse the parsed script from a .mjsc file (default: next to the script)");
+        System.out.println("  --flush=line|size|time  when buffered output is written (default: line without files, size with files)");
+        System.out.println("  --async-output       write the output on a separate thread");
+        System.out.println("  --seed=n             seed the random number generator for reproducible runs");
+        System.out.println("  --max-steps=n        stop a script after n loop iterations and function calls");
+        System.out.println("  --timeout=ms         stop a script after ms milliseconds of execution");
+        System.out.println("  --profile[=file]     sample the running script, print a report on stderr and");
+        System.out.println("                       write the collapsed stacks (for flame graphs) to file");
+    }
+
+    // No prompt a saída aparece a cada linha; com arquivos, quando o buffer
+    // enche ou no final.
+    private static OutputSink output(boolean interactive) {
+        FlushPolicy policy = flush != null ? flush : interactive ? FlushPolicy.LINE : FlushPolicy.SIZE;
+        OutputSink output = new StreamSink(System.out, policy);
+        return async ? new AsyncSink(output) : output;
+    }
+
+    private static InterpreterContext context(OutputSink output) {
+        InterpreterContext context = new InterpreterContext();
+        context.setOutput(output);
+        if (seed != null)
+            context.setSeed(seed);
+        if (maxSteps != null)
+            context.getBudget().setMaxSteps(maxSteps);
+        if (timeout != null)
+            context.getBudget().setMaxTime(timeout, TimeUnit.MILLISECONDS);
+        return context;
+    }
+
+    // Depois que a saída do script foi toda escrita.
+    private static void report() throws IOException {
+        profiler.close();
+        profiler.getProfile().report(System.err);
+        if (collapsed != null) {
+            try (Writer out = Files.newBufferedWriter(collapsed, StandardCharsets.UTF_8)) {
+                profiler.getProfile().writeCollapsed(out);
+            }
+        }
+    }
+
+    private static void runPrompt(InterpreterContext context) throws Exception {
+        // console.read() no prompt lê da mesma entrada.
         for (;;) {
+            context.getOutput().flush();
             System.out.print("> ");
-            String line = reader.readLine();
+            String line = context.getInput().readLine();
             if (line == null) {
                 System.out.println();
                 break;
             }
 
-            run(new ByteArrayInputStream(line.getBytes()));
+            ByteArrayInputStream is = new ByteArrayInputStream(line.getBytes());
+            run(context, "<prompt>", tableLexer ? new TableLexicalAnalysis(is) : new LexicalAnalysis(is));
         }
     }
 
-    private static void runFile(String filename) throws Exception {
-        run(new FileInputStream(filename));
+    // Um arquivo que não pode ser lido é um erro desse script, como um erro
+    // de sintaxe; os demais arquivos ainda executam.
+    private static void runFile(InterpreterContext context, String filename) throws Exception {
+        ByteBuffer bytes;
+        try {
+            bytes = LexicalAnalysis.mapBytes(filename);
+        } catch (LexicalException e) {
+            context.getOutput().println(e.getMessage());
+            return;
+        }
+        Path source = Paths.get(filename);
+        String name = source.getFileName().toString();
+        if (cache == null) {
+            run(context, name, lexer(LexicalAnalysis.decode(bytes)));
+            return;
+        }
+
+        byte[] digest = ScriptCache.digest(bytes);
+        Command cmd = cache.load(context, source, digest);
+        if (cmd == null) {
+            boolean cacheable;
+            try (LexicalAnalysis l = lexer(LexicalAnalysis.decode(bytes))) {
+                SyntaticAnalysis s = new SyntaticAnalysis(l, context);
+                cmd = s.process();
+                cacheable = s.isCacheable();
+            } catch (Exception e) {
+                context.getOutput().println(e.getMessage());
+                return;
+            }
+            // Literais que chamam funções ou leem variáveis são avaliados
+            // na análise; a árvore gravada repetiria os valores desta
+            // execução.
+            if (cacheable)
+                cache.store(context, source, digest, cmd);
+        }
+
+        // O cache guarda a árvore sem otimizações.
+        execute(context, name, optimize ? Optimizer.optimize(cmd) : cmd);
     }
 
-    private static void run(InputStream is) {
-        try (LexicalAnalysis l = new LexicalAnalysis(is)) {
+    private static LexicalAnalysis lexer(CharBuffer source) {
+        return tableLexer ? new TableLexicalAnalysis(source) : new LexicalAnalysis(source);
+    }
+
+    private static void run(InterpreterContext context, String name, LexicalAnalysis l) {
+        try (l) {
             // // O código a seguir é usado apenas para testar o analisador léxico.
             // // TODO: depois de pronto, comentar o código abaixo.
             // Token lex;
@@ -64,13 +306,30 @@ public class mjsi {
 
             // O código a seguir é dado para testar o interpretador.
             // TODO: descomentar depois que o analisador léxico estiver OK.
-            SyntaticAnalysis s = new SyntaticAnalysis(l);
+            SyntaticAnalysis s = new SyntaticAnalysis(l, context);
             Command cmd = s.process();
-            Interpreter.interpret(cmd);
+            execute(context, name, optimize ? Optimizer.optimize(cmd) : cmd);
         } catch (Exception e) {
-            System.out.println(e.getMessage());
+            context.getOutput().println(e.getMessage());
             // e.printStackTrace();
         }
     }
 
+    // No prompt, cada linha tem os próprios limites.
+    private static void execute(InterpreterContext context, String name, Command cmd) {
+        context.getBudget().reset();
+        try {
+            if (profiler != null)
+                Interpreter.interpret(profiler.instrument(name, cmd));
+            else if ("stack".equals(vm))
+                new VirtualMachine().run(cmd);
+            else if ("register".equals(vm))
+                new RegisterMachine(context).run(cmd);
+            else
+                Interpreter.interpret(cmd);
+        } catch (Exception e) {
+            context.getOutput().println(e.getMessage());
+        }
+    }
+
 }
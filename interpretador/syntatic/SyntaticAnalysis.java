@@ -1,7 +1,8 @@
 package syntatic;
 
 import interpreter.Environment;
-import interpreter.Interpreter;
+import interpreter.FrameLayout;
+import interpreter.InterpreterContext;
 import interpreter.InterpreterException;
 import interpreter.command.AssignCommand;
 import interpreter.command.BlocksCommand;
@@ -17,6 +18,7 @@ import interpreter.expr.ConditionalExpr;
 import interpreter.expr.ConstExpr;
 import interpreter.expr.Expr;
 import interpreter.expr.FunctionCallExpr;
+import interpreter.expr.FunctionExpr;
 import interpreter.expr.ListExpr;
 import interpreter.expr.ObjectExpr;
 import interpreter.expr.ObjectItem;
@@ -24,6 +26,8 @@ import interpreter.expr.SetExpr;
 import interpreter.expr.UnaryExpr;
 import interpreter.expr.Variable;
 import interpreter.function.StandardFunction;
+import interpreter.jfr.CompileEvent;
+import interpreter.jfr.Statistics;
 import interpreter.value.BoolValue;
 import interpreter.value.FunctionValue;
 import interpreter.value.TextValue;
@@ -43,25 +47,68 @@ public class SyntaticAnalysis {
     private Token previous;
     private Environment environment;
 
+    // Para o CompileEvent: os tokens lidos e, só se o evento estiver
+    // ligado, o tempo gasto no analisador léxico.
+    private int tokens;
+    private boolean timing;
+    private long lexDuration;
+
+    // Listas e objetos literais são avaliados durante a análise. Se algum
+    // item não é constante (chama uma função, lê uma variável...), o valor
+    // pode mudar de uma execução para outra e a árvore não pode ser
+    // guardada em cache.
+    private boolean cacheable = true;
+
+    // Analisa o programa em um contexto próprio.
     public SyntaticAnalysis(LexicalAnalysis lex) {
+        this(lex, new InterpreterContext());
+    }
+
+    // As declarações de nível superior vão para as globais do contexto.
+    public SyntaticAnalysis(LexicalAnalysis lex, InterpreterContext context) {
         this.lex = lex;
         this.current = lex.nextToken();
+        this.tokens = 1;
         this.previous = null;
-        this.environment = Interpreter.globals;
+        this.environment = context.getGlobals();
     }
 
     public Command process() {
+        if (!Statistics.isRecording()) {
+            Command cmd = procCode();
+            eat(END_OF_FILE);
+            return cmd;
+        }
+
+        CompileEvent event = new CompileEvent();
+        timing = event.isEnabled();
+        event.begin();
+
         Command cmd = procCode();
         eat(END_OF_FILE);
 
+        event.finish(tokens, lex.getLine(), lexDuration);
         return cmd;
     }
 
+    // A árvore analisada pode ser reaproveitada (ScriptCache) sem repetir
+    // a avaliação dos literais.
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
     private void advance() {
         //System.out.println("Found (\"" + current.lexeme + "\", " +
         //    current.type + ")");
         previous = current;
-        current = lex.nextToken();
+        if (timing) {
+            long start = System.nanoTime();
+            current = lex.nextToken();
+            lexDuration += System.nanoTime() - start;
+        } else {
+            current = lex.nextToken();
+        }
+        tokens++;
     }
 
     private void eat(Token.Type type) {
@@ -520,8 +567,11 @@ public class SyntaticAnalysis {
         } else if (check(FUNCTION)) {
             int line = current.line;
             StandardFunction sf = procFunction();
-            FunctionValue fv = new FunctionValue(sf);
-            expr = new ConstExpr(line, fv);
+            // Dentro de outra função, cada avaliação cria uma Closure.
+            if (sf.getLayout().getEnclosing().isFunction())
+                expr = new FunctionExpr(line, sf);
+            else
+                expr = new ConstExpr(line, new FunctionValue(sf));
         } else {
            expr = procLValue();
         }
@@ -538,11 +588,11 @@ public class SyntaticAnalysis {
                     v = null;
                     break;
                 case FALSE:
-                    v = new BoolValue(false);
+                    v = BoolValue.of(false);
                     break;
                 case TRUE:
                 default:
-                    v = new BoolValue(true);
+                    v = BoolValue.of(true);
                     break;
             }
         } else if (check(NUMBER)) {
@@ -572,6 +622,8 @@ public class SyntaticAnalysis {
         }
 
         eat(CLOSE_BRA);
+        for (Expr item : items)
+            literalItem(item);
         ListExpr le = new ListExpr(previous.line, items);
 
         return le.expr();
@@ -600,11 +652,44 @@ public class SyntaticAnalysis {
         }
 
         eat(CLOSE_CUR);
+        for (ObjectItem item : items)
+            literalItem(item.value);
         ObjectExpr obj = new ObjectExpr(line, items);
         
         return obj.expr();
     }
 
+    private void literalItem(Expr item) {
+        if (!constant(item))
+            cacheable = false;
+    }
+
+    // Constantes, inclusive listas, objetos e funções literais do nível
+    // superior, e operações sem efeito colateral sobre elas.
+    private static boolean constant(Expr expr) {
+        if (expr instanceof ConstExpr)
+            return true;
+
+        if (expr instanceof UnaryExpr) {
+            UnaryExpr uexpr = (UnaryExpr) expr;
+            switch (uexpr.getOp()) {
+                case Not:
+                case Pos:
+                case Neg:
+                    return constant(uexpr.getExpr());
+                default:
+                    return false;
+            }
+        }
+
+        if (expr instanceof BinaryExpr) {
+            BinaryExpr bexpr = (BinaryExpr) expr;
+            return constant(bexpr.getLeft()) && constant(bexpr.getRight());
+        }
+
+        return false;
+    }
+
     // <function> ::= function '(' ')' '{' <code> [ return <expr> ';' ] '}'
     private StandardFunction procFunction() {
         eat(FUNCTION);
@@ -613,7 +698,7 @@ public class SyntaticAnalysis {
         eat(OPEN_CUR);
 
         Environment old = this.environment;
-        this.environment = new Environment(old);
+        this.environment = new Environment(old, new FrameLayout(old.getLayout()));
 
         StandardFunction sf = null;
         try {
@@ -627,7 +712,7 @@ public class SyntaticAnalysis {
                 eat(SEMICOLON);
             }
 
-            sf = new StandardFunction(params, cmds, ret);
+            sf = new StandardFunction(params, this.environment.getLayout(), cmds, ret);
         } finally {
             this.environment = old;
         }